@@ -1,5 +1,4 @@
 package graph;
-import java.util.ArrayDeque;
 
 /* See restrictions in Graph.java. */
 
@@ -12,7 +11,7 @@ public class BreadthFirstTraversal extends Traversal {
 
     /** A breadth-first Traversal of G. */
     protected BreadthFirstTraversal(Graph G) {
-        super(G, new ArrayDeque<>());
+        super(G, new IntDeque());
     }
 
     @Override
@@ -0,0 +1,72 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/** Buffered output of primitive values to a channel, in big-endian
+ *  order.
+ *  @author Wenhan Jin
+ */
+class ChannelSink {
+
+    /** Output to CHANNEL. */
+    ChannelSink(WritableByteChannel channel) {
+        _channel = channel;
+    }
+
+    /** Append X. */
+    void putInt(int x) throws IOException {
+        reserve(Integer.BYTES);
+        _buffer.putInt(x);
+    }
+
+    /** Append X. */
+    void putLong(long x) throws IOException {
+        reserve(Long.BYTES);
+        _buffer.putLong(x);
+    }
+
+    /** Append the contents of A. */
+    void putBytes(byte[] a) throws IOException {
+        for (int k = 0; k < a.length; ) {
+            reserve(1);
+            int n = Math.min(a.length - k, _buffer.remaining());
+            _buffer.put(a, k, n);
+            k += n;
+        }
+    }
+
+    /** Returns the number of bytes appended so far. */
+    long position() {
+        return _written + _buffer.position();
+    }
+
+    /** Write out all buffered bytes. */
+    void flush() throws IOException {
+        _buffer.flip();
+        while (_buffer.hasRemaining()) {
+            _written += _channel.write(_buffer);
+        }
+        _buffer.clear();
+    }
+
+    /** Make room for N more bytes in _buffer. */
+    private void reserve(int n) throws IOException {
+        if (_buffer.remaining() < n) {
+            flush();
+        }
+    }
+
+    /** Size of the buffer. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** Destination of the output. */
+    private final WritableByteChannel _channel;
+    /** Bytes not yet written. */
+    private final ByteBuffer _buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    /** Number of bytes written to _channel. */
+    private long _written;
+}
@@ -0,0 +1,485 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/** An immutable copy of the structure of some other Graph that stores
+ *  each successor list as a compact sequence of bytes.  The successors
+ *  of each vertex are sorted, and each is represented by its distance
+ *  from the previous one (for the first, from the vertex itself), written
+ *  as a variable-length integer of 7 bits per byte.  When the neighbors
+ *  of a vertex have nearby numbers, as they often do in road maps, web
+ *  graphs, and graphs whose vertices were numbered by a search, most
+ *  edges take a single byte, against four in a FrozenGraph and far more
+ *  in a DirectedGraph.  successors(v) decodes the list of V as it goes.
+ *  Optionally, the predecessor lists of a directed graph are stored the
+ *  same way.
+ *
+ *  Vertex numbers are those of the original graph, but successors are
+ *  delivered in increasing order.  Edge ids are unrelated to those of the
+ *  original graph.  Operations that would modify the graph throw
+ *  UnsupportedOperationException.
+ *  @author Wenhan Jin
+ */
+public class CompressedGraph extends Graph {
+
+    /** A compressed copy of G, which also records predecessors if G is
+     *  directed. */
+    public CompressedGraph(Graph G) {
+        this(G, true);
+    }
+
+    /** A compressed copy of G.  If G is directed, its predecessors are
+     *  recorded iff WITHPREDECESSORS; otherwise predecessors(v) and
+     *  inDegree(v) are computed by searching all edges. */
+    public CompressedGraph(Graph G, boolean withPredecessors) {
+        _directed = G.isDirected();
+        _maxVertex = G.maxVertex();
+        _present = new BitSet(_maxVertex + 1);
+        for (IntIteration it = G.verticesInt(); it.hasNext(); ) {
+            _present.set(it.nextInt());
+        }
+        _vertexSize = _present.cardinality();
+        ByteSink out = new ByteSink();
+        _offsets = new int[_maxVertex + 2];
+        IntList row = new IntList();
+        int entries, loops;
+        entries = loops = 0;
+        for (int v = 1; v <= _maxVertex; v += 1) {
+            _offsets[v] = out.size();
+            row.clear();
+            if (_present.get(v)) {
+                for (IntIteration it = G.successorsInt(v); it.hasNext(); ) {
+                    int w = it.nextInt();
+                    row.add(w);
+                    if (w == v) {
+                        loops += 1;
+                    }
+                }
+            }
+            entries += row.size();
+            encode(v, row, out);
+        }
+        _offsets[_maxVertex + 1] = out.size();
+        _data = out.toArray();
+        _edgeSize = _directed ? entries : (entries + loops) / 2;
+        if (_directed && withPredecessors) {
+            IntList[] in = new IntList[_maxVertex + 1];
+            for (int u = 1; u <= _maxVertex; u += 1) {
+                for (IntIteration it = successorsInt(u); it.hasNext(); ) {
+                    int w = it.nextInt();
+                    if (in[w] == null) {
+                        in[w] = new IntList();
+                    }
+                    in[w].add(u);
+                }
+            }
+            out = new ByteSink();
+            _inOffsets = new int[_maxVertex + 2];
+            for (int v = 1; v <= _maxVertex; v += 1) {
+                _inOffsets[v] = out.size();
+                encode(v, in[v] == null ? new IntList() : in[v], out);
+                in[v] = null;
+            }
+            _inOffsets[_maxVertex + 1] = out.size();
+            _inData = out.toArray();
+        } else {
+            _inOffsets = null;
+            _inData = null;
+        }
+    }
+
+    /** Returns the approximate number of bytes occupied by my
+     *  representation of the graph. */
+    public long sizeInBytes() {
+        long size = _data.length + 4L * _offsets.length
+            + _present.size() / Byte.SIZE;
+        if (_inData != null) {
+            size += _inData.length + 4L * _inOffsets.length;
+        }
+        return size;
+    }
+
+    @Override
+    public int vertexSize() {
+        return _vertexSize;
+    }
+
+    @Override
+    public int maxVertex() {
+        return _maxVertex;
+    }
+
+    @Override
+    public int edgeSize() {
+        return _edgeSize;
+    }
+
+    @Override
+    public boolean isDirected() {
+        return _directed;
+    }
+
+    @Override
+    public int outDegree(int v) {
+        if (!contains(v)) {
+            return 0;
+        }
+        return new Decoder(_data, _offsets[v], v).remaining();
+    }
+
+    @Override
+    public int inDegree(int v) {
+        if (!contains(v)) {
+            return 0;
+        } else if (!_directed) {
+            return outDegree(v);
+        } else if (_inData != null) {
+            return new Decoder(_inData, _inOffsets[v], v).remaining();
+        }
+        int n;
+        n = 0;
+        for (int u = 1; u <= _maxVertex; u += 1) {
+            if (find(u, v) >= 0) {
+                n += 1;
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public boolean contains(int u) {
+        return u > 0 && u <= _maxVertex && _present.get(u);
+    }
+
+    @Override
+    public boolean contains(int u, int v) {
+        return contains(v) && find(u, v) >= 0;
+    }
+
+    @Override
+    public int add() {
+        throw frozen();
+    }
+
+    @Override
+    public int add(int u, int v) {
+        throw frozen();
+    }
+
+    @Override
+    public void remove(int v) {
+        throw frozen();
+    }
+
+    @Override
+    public void remove(int u, int v) {
+        throw frozen();
+    }
+
+    @Override
+    public Iteration<Integer> vertices() {
+        return verticesInt();
+    }
+
+    @Override
+    public IntIteration verticesInt() {
+        return new IntIteration() {
+            @Override
+            public boolean hasNext() {
+                return _v > 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int v = _v;
+                _v = _present.nextSetBit(v + 1);
+                return v;
+            }
+
+            /** The next vertex, or -1 if there is none. */
+            private int _v = _present.nextSetBit(1);
+        };
+    }
+
+    @Override
+    public Iteration<Integer> successors(int v) {
+        return successorsInt(v);
+    }
+
+    @Override
+    public IntIteration successorsInt(int v) {
+        if (!contains(v)) {
+            return IntIteration.empty();
+        }
+        return new Decoder(_data, _offsets[v], v);
+    }
+
+    @Override
+    public Iteration<Integer> predecessors(int v) {
+        return predecessorsInt(v);
+    }
+
+    @Override
+    public IntIteration predecessorsInt(int v) {
+        if (!contains(v)) {
+            return IntIteration.empty();
+        } else if (!_directed) {
+            return successorsInt(v);
+        } else if (_inData != null) {
+            return new Decoder(_inData, _inOffsets[v], v);
+        }
+        IntList result = new IntList();
+        for (int u = 1; u <= _maxVertex; u += 1) {
+            if (find(u, v) >= 0) {
+                result.add(u);
+            }
+        }
+        return result.iteration();
+    }
+
+    @Override
+    public void forEachSuccessor(int v, IntConsumer action) {
+        if (contains(v)) {
+            for (Decoder d = new Decoder(_data, _offsets[v], v);
+                 d.hasNext(); ) {
+                action.accept(d.nextInt());
+            }
+        }
+    }
+
+    @Override
+    public Iteration<int[]> edges() {
+        return new Iteration<int[]>() {
+            @Override
+            public boolean hasNext() {
+                while (!_ready) {
+                    while (_succ == null || !_succ.hasNext()) {
+                        _u = _present.nextSetBit(_u + 1);
+                        if (_u < 0) {
+                            return false;
+                        }
+                        _succ = new Decoder(_data, _offsets[_u], _u);
+                    }
+                    _v = _succ.nextInt();
+                    _ready = _directed || _u <= _v;
+                }
+                return true;
+            }
+
+            @Override
+            public int[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                _ready = false;
+                _edge[0] = _u;
+                _edge[1] = _v;
+                return _edge;
+            }
+
+            /** Source vertex of the edges being delivered. */
+            private int _u = 0;
+            /** The successors of _u not yet examined. */
+            private Decoder _succ;
+            /** The target of the next edge, if _ready. */
+            private int _v;
+            /** True iff (_u, _v) is the next edge to deliver. */
+            private boolean _ready;
+            /** The array returned by next(). */
+            private final int[] _edge = new int[2];
+        };
+    }
+
+    @Override
+    protected int edgeId(int u, int v) {
+        if (!contains(v)) {
+            return 0;
+        }
+        if (!_directed && u > v) {
+            return find(v, u) + 1;
+        }
+        return find(u, v) + 1;
+    }
+
+    /** Returns a number that identifies edge (U, V) uniquely among my
+     *  edges, or -1 if V is not a successor of U.  Because every list
+     *  entry, and the length that precedes each list, take at least one
+     *  byte, the offset of U's list plus the position of V within it is
+     *  less than the offset of the next list. */
+    private int find(int u, int v) {
+        if (!contains(u)) {
+            return -1;
+        }
+        Decoder d = new Decoder(_data, _offsets[u], u);
+        for (int k = 0; d.hasNext(); k += 1) {
+            int w = d.nextInt();
+            if (w == v) {
+                return _offsets[u] + k;
+            } else if (w > v) {
+                break;
+            }
+        }
+        return -1;
+    }
+
+    /** Append to OUT the encoding of the list of neighbors ROW of vertex
+     *  V: its length, then the distance of its smallest item from V, and
+     *  then the gaps between its successive items in increasing order.
+     *  ROW itself is not modified. */
+    private static void encode(int v, IntList row, ByteSink out) {
+        int[] items = row.toArray();
+        Arrays.sort(items);
+        out.putVarInt(items.length);
+        int prev = v;
+        for (int k = 0; k < items.length; k += 1) {
+            if (k == 0) {
+                int d = items[0] - v;
+                out.putVarInt((d << 1) ^ (d >> (Integer.SIZE - 1)));
+            } else {
+                out.putVarInt(items[k] - prev - 1);
+            }
+            prev = items[k];
+        }
+    }
+
+    /** Returns the exception thrown by attempts to modify me. */
+    private static UnsupportedOperationException frozen() {
+        return new UnsupportedOperationException("graph is frozen");
+    }
+
+    /** An iteration over a list encoded by encode. */
+    private static class Decoder extends IntIteration {
+        /** An iteration over the list of vertex V encoded in DATA starting
+         *  at POS. */
+        Decoder(byte[] data, int pos, int v) {
+            _data = data;
+            _pos = pos;
+            _prev = v;
+            _remaining = readVarInt();
+            _first = true;
+        }
+
+        /** Returns the number of items not yet delivered. */
+        int remaining() {
+            return _remaining;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _remaining > 0;
+        }
+
+        @Override
+        public int nextInt() {
+            if (_remaining == 0) {
+                throw new NoSuchElementException();
+            }
+            _remaining -= 1;
+            int x = readVarInt();
+            if (_first) {
+                _first = false;
+                _prev += (x >>> 1) ^ -(x & 1);
+            } else {
+                _prev += x + 1;
+            }
+            return _prev;
+        }
+
+        /** Read and return the variable-length integer at _pos. */
+        private int readVarInt() {
+            int b = _data[_pos];
+            _pos += 1;
+            int x = b & DIGIT;
+            for (int shift = DIGIT_BITS; b < 0; shift += DIGIT_BITS) {
+                b = _data[_pos];
+                _pos += 1;
+                x |= (b & DIGIT) << shift;
+            }
+            return x;
+        }
+
+        /** The encoded lists. */
+        private final byte[] _data;
+        /** Position of the next byte to read. */
+        private int _pos;
+        /** Number of items not yet delivered. */
+        private int _remaining;
+        /** The last item delivered (initially the list's vertex). */
+        private int _prev;
+        /** True iff the next item is the first in the list. */
+        private boolean _first;
+    }
+
+    /** A growing sequence of bytes. */
+    private static class ByteSink {
+        /** Append the unsigned variable-length encoding of X: seven bits
+         *  per byte, least significant first, with the high bit of each
+         *  byte but the last set. */
+        void putVarInt(int x) {
+            while ((x & ~DIGIT) != 0) {
+                put((byte) ((x & DIGIT) | ~DIGIT));
+                x >>>= DIGIT_BITS;
+            }
+            put((byte) x);
+        }
+
+        /** Append B. */
+        void put(byte b) {
+            if (_size == _bytes.length) {
+                _bytes = Arrays.copyOf(_bytes, 2 * _bytes.length);
+            }
+            _bytes[_size] = b;
+            _size += 1;
+        }
+
+        /** Returns the number of bytes appended. */
+        int size() {
+            return _size;
+        }
+
+        /** Returns a copy of the bytes appended. */
+        byte[] toArray() {
+            return Arrays.copyOf(_bytes, _size);
+        }
+
+        /** The bytes appended, in _bytes[0 .. _size - 1]. */
+        private byte[] _bytes = new byte[INITIAL_CAPACITY];
+        /** Number of bytes appended. */
+        private int _size;
+    }
+
+    /** Number of bits of data in each byte of a variable-length
+     *  integer. */
+    private static final int DIGIT_BITS = 7;
+    /** Mask for the data bits of a byte of a variable-length integer. */
+    private static final int DIGIT = (1 << DIGIT_BITS) - 1;
+    /** Initial size of a ByteSink. */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /** True iff I am directed. */
+    private final boolean _directed;
+    /** My maximum vertex number. */
+    private final int _maxVertex;
+    /** Number of vertices and of edges. */
+    private final int _vertexSize, _edgeSize;
+    /** The set of my vertices. */
+    private final BitSet _present;
+    /** Start in _data of the encoded successor list of V, indexed by V.
+     *  The final entry is _data.length. */
+    private final int[] _offsets;
+    /** Concatenated encoded successor lists. */
+    private final byte[] _data;
+    /** Start of the encoded predecessors of V in _inData, or null if
+     *  predecessors are not recorded. */
+    private final int[] _inOffsets;
+    /** Concatenated encoded predecessor lists, or null. */
+    private final byte[] _inData;
+}
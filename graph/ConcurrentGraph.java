@@ -0,0 +1,461 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/** A directed or undirected graph that may be used and modified by
+ *  several threads at once.
+ *
+ *  Readers take no locks and never block.  The successor (and, for
+ *  directed graphs, predecessor) list of each vertex is immutable, and
+ *  writers replace it with an updated copy, so successors(v) and its
+ *  relatives iterate over a consistent list even while the graph
+ *  changes.  Each successor list also holds its targets in sorted order
+ *  with their edge ids, so that contains(u, v) and edgeId(u, v) are
+ *  binary searches of the current list of U, and allocate nothing.  Vertex nodes are published
+ *  with release stores and read with acquire loads.
+ *
+ *  Writers that add or remove an edge (U, V) lock only the two lock
+ *  stripes to which U and V belong, so that writers touching disjoint
+ *  vertices seldom wait for each other and never wait for readers.
+ *  Adding and removing vertices is serialized by a separate lock.  Each
+ *  operation is atomic with respect to other writers.  For an undirected
+ *  graph, a reader may see a new edge from one end point slightly before
+ *  it sees it from the other.  edges() returns a snapshot taken one
+ *  vertex at a time.
+ *  @author Wenhan Jin
+ */
+public class ConcurrentGraph extends Graph {
+
+    /** An empty graph, directed iff DIRECTED. */
+    public ConcurrentGraph(boolean directed) {
+        _directed = directed;
+        _stripes = new ReentrantLock[STRIPES];
+        for (int i = 0; i < STRIPES; i += 1) {
+            _stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public int vertexSize() {
+        return _vertexCount.get();
+    }
+
+    @Override
+    public int maxVertex() {
+        return _maxVertex;
+    }
+
+    @Override
+    public int edgeSize() {
+        return _edgeCount.get();
+    }
+
+    @Override
+    public boolean isDirected() {
+        return _directed;
+    }
+
+    @Override
+    public int outDegree(int v) {
+        Node node = node(v);
+        return node == null ? 0 : node.out.order.length;
+    }
+
+    @Override
+    public int inDegree(int v) {
+        Node node = node(v);
+        return node == null ? 0 : node.in().length;
+    }
+
+    @Override
+    public boolean contains(int u) {
+        return node(u) != null;
+    }
+
+    @Override
+    public boolean contains(int u, int v) {
+        return edgeId(u, v) != 0;
+    }
+
+    @Override
+    public int add() {
+        _vertexLock.lock();
+        try {
+            int v = _free.isEmpty() ? _maxVertex + 1 : _free.poll();
+            if (v >= _nodes.length) {
+                _nodes = Arrays.copyOf(_nodes,
+                                       Math.max(v + 1, 2 * _nodes.length));
+            }
+            NODES.setRelease(_nodes, v, new Node());
+            _maxVertex = Math.max(_maxVertex, v);
+            _vertexCount.incrementAndGet();
+            return v;
+        } finally {
+            _vertexLock.unlock();
+        }
+    }
+
+    @Override
+    public int add(int u, int v) {
+        Node nu = node(u), nv = node(v);
+        if (nu == null || nv == null) {
+            throw new IllegalArgumentException("vertex not from Graph");
+        }
+        lock(u, v);
+        try {
+            if (nu.removed || nv.removed) {
+                throw new IllegalArgumentException("vertex not from Graph");
+            }
+            int id = nu.out.id(v);
+            if (id != 0) {
+                return id;
+            }
+            Integer recycled = _freeEdgeIds.poll();
+            id = recycled == null ? _nextEdgeId.incrementAndGet() : recycled;
+            nu.out = nu.out.with(v, id);
+            if (_directed) {
+                nv.in = append(nv.in, u);
+            } else if (u != v) {
+                nv.out = nv.out.with(u, id);
+            }
+            _edgeCount.incrementAndGet();
+            return id;
+        } finally {
+            unlock(u, v);
+        }
+    }
+
+    @Override
+    public void remove(int v) {
+        _vertexLock.lock();
+        try {
+            Node node = node(v);
+            if (node == null) {
+                return;
+            }
+            lock(v, v);
+            try {
+                node.removed = true;
+            } finally {
+                unlock(v, v);
+            }
+            for (int w : node.out.order) {
+                removeEdge(v, w);
+            }
+            if (_directed) {
+                for (int u : node.in) {
+                    removeEdge(u, v);
+                }
+            }
+            NODES.setRelease(_nodes, v, (Node) null);
+            _free.add(v);
+            _vertexCount.decrementAndGet();
+            if (v == _maxVertex) {
+                int max = v;
+                while (max > 0 && slot(max) == null) {
+                    max -= 1;
+                }
+                final int newMax = max;
+                _free.removeIf(w -> w > newMax);
+                _maxVertex = newMax;
+            }
+        } finally {
+            _vertexLock.unlock();
+        }
+    }
+
+    @Override
+    public void remove(int u, int v) {
+        if (contains(u) && contains(v)) {
+            removeEdge(u, v);
+        }
+    }
+
+    @Override
+    public Iteration<Integer> vertices() {
+        return verticesInt();
+    }
+
+    @Override
+    public IntIteration verticesInt() {
+        IntList result = new IntList();
+        Node[] nodes = _nodes;
+        for (int v = 1; v < nodes.length; v += 1) {
+            Node node = (Node) NODES.getAcquire(nodes, v);
+            if (node != null && !node.removed) {
+                result.add(v);
+            }
+        }
+        return result.iteration();
+    }
+
+    @Override
+    public Iteration<Integer> successors(int v) {
+        return successorsInt(v);
+    }
+
+    @Override
+    public IntIteration successorsInt(int v) {
+        Node node = node(v);
+        if (node == null) {
+            return IntIteration.empty();
+        }
+        int[] out = node.out.order;
+        return IntIteration.intIteration(out, 0, out.length);
+    }
+
+    @Override
+    public Iteration<Integer> predecessors(int v) {
+        return predecessorsInt(v);
+    }
+
+    @Override
+    public IntIteration predecessorsInt(int v) {
+        Node node = node(v);
+        if (node == null) {
+            return IntIteration.empty();
+        }
+        int[] in = node.in();
+        return IntIteration.intIteration(in, 0, in.length);
+    }
+
+    @Override
+    public Iteration<int[]> edges() {
+        final IntList ends = new IntList();
+        Node[] nodes = _nodes;
+        for (int u = 1; u < nodes.length; u += 1) {
+            Node node = (Node) NODES.getAcquire(nodes, u);
+            if (node != null && !node.removed) {
+                for (int v : node.out.order) {
+                    if (_directed || u <= v) {
+                        ends.add(u);
+                        ends.add(v);
+                    }
+                }
+            }
+        }
+        return new Iteration<int[]>() {
+            @Override
+            public boolean hasNext() {
+                return _k < ends.size();
+            }
+
+            @Override
+            public int[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                _edge[0] = ends.get(_k);
+                _edge[1] = ends.get(_k + 1);
+                _k += 2;
+                return _edge;
+            }
+
+            /** Position of the next edge in ENDS. */
+            private int _k;
+            /** The array returned by next(). */
+            private final int[] _edge = new int[2];
+        };
+    }
+
+    @Override
+    protected int edgeId(int u, int v) {
+        Node nu = node(u);
+        return nu == null ? 0 : nu.out.id(v);
+    }
+
+    /** Remove edge (U, V), if present, even if U or V is being
+     *  removed. */
+    private void removeEdge(int u, int v) {
+        Node nu = slot(u), nv = slot(v);
+        if (nu == null || nv == null) {
+            return;
+        }
+        lock(u, v);
+        try {
+            int id = nu.out.id(v);
+            if (id == 0) {
+                return;
+            }
+            nu.out = nu.out.without(v);
+            if (_directed) {
+                nv.in = without(nv.in, u);
+            } else if (u != v) {
+                nv.out = nv.out.without(u);
+            }
+            _freeEdgeIds.add(id);
+            _edgeCount.decrementAndGet();
+        } finally {
+            unlock(u, v);
+        }
+    }
+
+    /** Returns the node for vertex V, or null if V is not one of my
+     *  vertices. */
+    private Node node(int v) {
+        Node node = slot(v);
+        return node == null || node.removed ? null : node;
+    }
+
+    /** Returns the node at position V of _nodes, which may belong to a
+     *  vertex that is being removed, or null if there is none. */
+    private Node slot(int v) {
+        Node[] nodes = _nodes;
+        if (v <= 0 || v >= nodes.length) {
+            return null;
+        }
+        return (Node) NODES.getAcquire(nodes, v);
+    }
+
+    /** Acquire the stripe locks for U and V, in a fixed order so that
+     *  writers cannot deadlock. */
+    private void lock(int u, int v) {
+        int a = u & (STRIPES - 1), b = v & (STRIPES - 1);
+        _stripes[Math.min(a, b)].lock();
+        if (a != b) {
+            _stripes[Math.max(a, b)].lock();
+        }
+    }
+
+    /** Release the stripe locks acquired by lock(U, V). */
+    private void unlock(int u, int v) {
+        int a = u & (STRIPES - 1), b = v & (STRIPES - 1);
+        if (a != b) {
+            _stripes[Math.max(a, b)].unlock();
+        }
+        _stripes[Math.min(a, b)].unlock();
+    }
+
+    /** Returns a copy of A with X appended. */
+    private static int[] append(int[] a, int x) {
+        int[] result = Arrays.copyOf(a, a.length + 1);
+        result[a.length] = x;
+        return result;
+    }
+
+    /** Returns a copy of A without its first occurrence of X. */
+    private static int[] without(int[] a, int x) {
+        for (int i = 0; i < a.length; i += 1) {
+            if (a[i] == x) {
+                int[] result = new int[a.length - 1];
+                System.arraycopy(a, 0, result, 0, i);
+                System.arraycopy(a, i + 1, result, i, a.length - i - 1);
+                return result;
+            }
+        }
+        return a;
+    }
+
+    /** An immutable successor list, with the ids of its edges. */
+    private static class Successors {
+        /** A list whose successors are ORDER, and which contains the
+         *  successor SORTED[K] along the edge with id IDS[K]. */
+        Successors(int[] order, int[] sorted, int[] ids) {
+            this.order = order;
+            this.sorted = sorted;
+            this.ids = ids;
+        }
+
+        /** Returns the id of the edge to V, or 0 if V is not in me. */
+        int id(int v) {
+            int k = Arrays.binarySearch(sorted, v);
+            return k < 0 ? 0 : ids[k];
+        }
+
+        /** Returns a copy of me with V added at the end, along an edge
+         *  with id ID.  V must not be in me. */
+        Successors with(int v, int id) {
+            int k = -Arrays.binarySearch(sorted, v) - 1;
+            int n = sorted.length;
+            int[] newSorted = new int[n + 1], newIds = new int[n + 1];
+            System.arraycopy(sorted, 0, newSorted, 0, k);
+            System.arraycopy(ids, 0, newIds, 0, k);
+            newSorted[k] = v;
+            newIds[k] = id;
+            System.arraycopy(sorted, k, newSorted, k + 1, n - k);
+            System.arraycopy(ids, k, newIds, k + 1, n - k);
+            return new Successors(append(order, v), newSorted, newIds);
+        }
+
+        /** Returns a copy of me without V, or me if V is not in me. */
+        Successors without(int v) {
+            int k = Arrays.binarySearch(sorted, v);
+            if (k < 0) {
+                return this;
+            }
+            int n = sorted.length;
+            int[] newSorted = new int[n - 1], newIds = new int[n - 1];
+            System.arraycopy(sorted, 0, newSorted, 0, k);
+            System.arraycopy(ids, 0, newIds, 0, k);
+            System.arraycopy(sorted, k + 1, newSorted, k, n - k - 1);
+            System.arraycopy(ids, k + 1, newIds, k, n - k - 1);
+            return new Successors(ConcurrentGraph.without(order, v),
+                                  newSorted, newIds);
+        }
+
+        /** The successors, in the order added. */
+        private final int[] order;
+        /** The successors in increasing order, and the ids of the edges
+         *  to them. */
+        private final int[] sorted, ids;
+    }
+
+    /** The adjacency lists of one vertex. */
+    private class Node {
+        /** Returns my predecessors. */
+        int[] in() {
+            return _directed ? in : out.order;
+        }
+
+        /** Successors, replaced (never modified) by writers. */
+        private volatile Successors out = NO_SUCCESSORS;
+        /** Predecessors, if directed. */
+        private volatile int[] in = EMPTY;
+        /** True once my vertex has been removed. */
+        private volatile boolean removed;
+    }
+
+    /** Number of lock stripes (a power of 2). */
+    private static final int STRIPES = 64;
+    /** An empty adjacency list. */
+    private static final int[] EMPTY = new int[0];
+    /** An empty successor list. */
+    private static final Successors NO_SUCCESSORS =
+        new Successors(EMPTY, EMPTY, EMPTY);
+    /** Release and acquire access to the elements of _nodes. */
+    private static final VarHandle NODES =
+        MethodHandles.arrayElementVarHandle(Node[].class);
+
+    /** True iff I am directed. */
+    private final boolean _directed;
+    /** Vertex nodes, indexed by vertex number.  Replaced by a larger copy
+     *  (under _vertexLock) when it fills. */
+    private volatile Node[] _nodes = new Node[1];
+    /** Locks guarding the adjacency lists of the vertices with a given
+     *  remainder modulo STRIPES. */
+    private final ReentrantLock[] _stripes;
+    /** Lock serializing the addition and removal of vertices. */
+    private final ReentrantLock _vertexLock = new ReentrantLock();
+    /** Unused vertex numbers below _maxVertex (guarded by
+     *  _vertexLock). */
+    private final PriorityQueue<Integer> _free = new PriorityQueue<>();
+    /** My largest vertex number. */
+    private volatile int _maxVertex;
+    /** Number of vertices and of edges. */
+    private final AtomicInteger _vertexCount = new AtomicInteger(),
+        _edgeCount = new AtomicInteger();
+    /** Largest edge id allocated so far. */
+    private final AtomicInteger _nextEdgeId = new AtomicInteger();
+    /** Edge ids available for reuse. */
+    private final ConcurrentLinkedQueue<Integer> _freeEdgeIds =
+        new ConcurrentLinkedQueue<>();
+}
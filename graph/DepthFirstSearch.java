@@ -0,0 +1,161 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/** A depth-first search of a graph, recording the preorder and postorder
+ *  of the vertices, their discovery and finishing times, the resulting
+ *  depth-first forest, and the back edges found.  The search keeps its own
+ *  stack of vertices, each with an iteration over its remaining
+ *  successors, so that each vertex is pushed once and each edge examined
+ *  once: a search takes O(V + E) time, and deep graphs do not overflow the
+ *  Java stack.
+ *
+ *  Times start at 1 and increase by 1 at each discovery and each finish.
+ *  A back edge (U, V) is one from U to an ancestor V of U in the
+ *  depth-first forest (possibly U itself); a directed graph is acyclic iff
+ *  a search of all its vertices finds no back edges.  In an undirected
+ *  graph, the tree edge from a vertex to its parent is not counted as a
+ *  back edge.  The graph must not change during a search.
+ *  @author Wenhan Jin
+ */
+public class DepthFirstSearch {
+
+    /** A search of G that has not yet visited any vertex. */
+    public DepthFirstSearch(Graph G) {
+        _G = G;
+        _discovery = new int[G.maxVertex() + 1];
+        _finish = new int[G.maxVertex() + 1];
+        _parent = new int[G.maxVertex() + 1];
+        _preorder = new IntList();
+        _postorder = new IntList();
+        _backEdges = new ArrayList<>();
+    }
+
+    /** Search from each vertex of my graph not yet discovered, in the
+     *  order given by vertices().  Returns this search. */
+    public DepthFirstSearch search() {
+        for (IntIteration it = _G.verticesInt(); it.hasNext(); ) {
+            search(it.nextInt());
+        }
+        return this;
+    }
+
+    /** Search from vertex V0 if it has not already been discovered,
+     *  adding a tree rooted at V0 to the depth-first forest.  Returns this
+     *  search. */
+    public DepthFirstSearch search(int v0) {
+        if (!_G.contains(v0)) {
+            throw new IllegalArgumentException("vertex not from Graph");
+        }
+        grow();
+        if (_discovery[v0] != 0) {
+            return this;
+        }
+        int[] stack = new int[INITIAL_DEPTH];
+        IntIteration[] pending = new IntIteration[INITIAL_DEPTH];
+        int depth;
+        discover(v0, 0);
+        stack[0] = v0;
+        pending[0] = _G.successorsInt(v0);
+        depth = 1;
+        while (depth > 0) {
+            int u = stack[depth - 1];
+            IntIteration succ = pending[depth - 1];
+            if (!succ.hasNext()) {
+                _time += 1;
+                _finish[u] = _time;
+                _postorder.add(u);
+                pending[depth - 1] = null;
+                depth -= 1;
+                continue;
+            }
+            int v = succ.nextInt();
+            if (_discovery[v] == 0) {
+                discover(v, u);
+                if (depth == stack.length) {
+                    stack = Arrays.copyOf(stack, 2 * depth);
+                    pending = Arrays.copyOf(pending, 2 * depth);
+                }
+                stack[depth] = v;
+                pending[depth] = _G.successorsInt(v);
+                depth += 1;
+            } else if (_finish[v] == 0
+                       && (_G.isDirected() || v != _parent[u])) {
+                _backEdges.add(new int[] { u, v });
+            }
+        }
+        return this;
+    }
+
+    /** Returns the vertices discovered so far, in order of discovery. */
+    public int[] preorder() {
+        return _preorder.toArray();
+    }
+
+    /** Returns the vertices finished so far, in order of finishing. */
+    public int[] postorder() {
+        return _postorder.toArray();
+    }
+
+    /** Returns the time at which V was discovered, or 0 if it has not
+     *  been. */
+    public int discovery(int v) {
+        return v < _discovery.length ? _discovery[v] : 0;
+    }
+
+    /** Returns the time at which V was finished, or 0 if it has not
+     *  been. */
+    public int finish(int v) {
+        return v < _finish.length ? _finish[v] : 0;
+    }
+
+    /** Returns the parent of V in the depth-first forest, or 0 if V is a
+     *  root or has not been discovered. */
+    public int parent(int v) {
+        return v < _parent.length ? _parent[v] : 0;
+    }
+
+    /** Returns the back edges found so far, each as a two-element array
+     *  { U, V }, in the order found. */
+    public List<int[]> backEdges() {
+        return _backEdges;
+    }
+
+    /** Record the discovery of V from its parent U (0 for a root). */
+    private void discover(int v, int u) {
+        _time += 1;
+        _discovery[v] = _time;
+        _parent[v] = u;
+        _preorder.add(v);
+    }
+
+    /** Extend my per-vertex arrays to cover all vertices of my graph. */
+    private void grow() {
+        int n = _G.maxVertex() + 1;
+        if (n > _discovery.length) {
+            _discovery = Arrays.copyOf(_discovery, n);
+            _finish = Arrays.copyOf(_finish, n);
+            _parent = Arrays.copyOf(_parent, n);
+        }
+    }
+
+    /** Initial capacity of the search stack. */
+    private static final int INITIAL_DEPTH = 64;
+
+    /** The graph searched. */
+    private final Graph _G;
+    /** The last time assigned. */
+    private int _time;
+    /** Discovery and finishing times, indexed by vertex. */
+    private int[] _discovery, _finish;
+    /** Parents in the depth-first forest, indexed by vertex. */
+    private int[] _parent;
+    /** Vertices in order of discovery and finishing. */
+    private final IntList _preorder, _postorder;
+    /** Back edges, in order found. */
+    private final ArrayList<int[]> _backEdges;
+}
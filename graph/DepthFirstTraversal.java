@@ -1,24 +1,19 @@
 package graph;
 
-import java.util.ArrayDeque;
-import java.util.Collections;
-import java.util.NoSuchElementException;
-
-
 /* See restrictions in Graph.java. */
 
 /** Implements a depth-first traversal of a graph.  Generally, the
  *  client will extend this class, overriding the visit and
  *  postVisit methods, as desired (by default, they do nothing).
+ *  For preorder and postorder numbering, back edges, and cycle detection
+ *  without subclassing, see DepthFirstSearch and TopologicalSort.
  *  @author Wenhan Jin
  */
 public class DepthFirstTraversal extends Traversal {
 
     /** A depth-first Traversal of G. */
     protected DepthFirstTraversal(Graph G) {
-        super(G, Collections.asLifoQueue(new ArrayDeque<>()));
-        _G = G;
-        pv = new boolean[_G.maxVertex()];
+        super(G, new IntStack());
     }
 
     @Override
@@ -28,12 +23,6 @@ public class DepthFirstTraversal extends Traversal {
 
     @Override
     protected boolean postVisit(int v) {
-        pv[v - 1] = true;
-        for (Integer successor : _G.successors(v)) {
-            if (marked(v) && !pv[successor - 1]) {
-                throw new NoSuchElementException("Error: circular dependency");
-            }
-        }
         return super.postVisit(v);
     }
 
@@ -47,10 +36,4 @@ public class DepthFirstTraversal extends Traversal {
         return true;
     }
 
-
-    /** pv represents the state of whether each post visited node. */
-    private boolean[] pv;
-
-    /** Graph _G. */
-    private Graph _G;
 }
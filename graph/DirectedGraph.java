@@ -1,5 +1,6 @@
 package graph;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 
 /* See restrictions in Graph.java. */
 
@@ -17,53 +18,85 @@ public class DirectedGraph extends GraphObj {
 
     @Override
     public int inDegree(int v) {
-        if (!getallVertices().contains(v)) {
+        if (!contains(v)) {
             return 0;
         }
-        return findallpredecessors(v).size();
+        return inEdges(v).size();
     }
 
     @Override
     public Iteration<Integer> predecessors(int v) {
+        return predecessorsInt(v);
+    }
+
+    @Override
+    public IntIteration predecessorsInt(int v) {
         if (!contains(v)) {
-            return Iteration.iteration(new ArrayList<>());
-        } else {
-            return Iteration.iteration(findallpredecessorsEdgesorder(v));
+            return IntIteration.empty();
         }
+        return inEdges(v).iteration();
     }
 
+    @Override
+    int link(int u, int v) {
+        int e = super.link(u, v);
+        inEdges(v).add(u);
+        return e;
+    }
 
-    /** Return an arraylist that contains all predecessors of V. */
-    private ArrayList<Integer> findallpredecessors(int v) {
-        ArrayList<Integer> allpred = new ArrayList<>();
-        for (int node : getallVertices()) {
-            if (contains(node, v)) {
-                allpred.add(node);
+    @Override
+    void unlink(int u, int v) {
+        super.unlink(u, v);
+        inEdges(v).removeValue(u);
+    }
+
+    @Override
+    void dropEdges(int v, BitSet doomed, BitSet touched) {
+        super.dropEdges(v, doomed, touched);
+        IntList in = inEdges(v);
+        for (int k = 0; k < in.size(); k += 1) {
+            int u = in.get(k);
+            forget(u, v);
+            if (!doomed.get(u)) {
+                touched.set(u);
             }
         }
-        return allpred;
+        incoming[v] = null;
     }
 
-    /** Return an arraylist that contains predecessors of V
-     * in edge insertion order. */
-    private ArrayList<Integer> findallpredecessorsEdgesorder(int v) {
-        ArrayList<Integer> allpred = new ArrayList<>();
-        if (isDirected()) {
-            for (ArrayList<Integer> e : getallEdges()) {
-                if (e.get(1).equals(v)) {
-                    allpred.add(e.get(0));
-                }
-            }
-            return allpred;
-        } else {
-            for (ArrayList<Integer> edge : getallEdges()) {
-                if (edge.get(0).equals(v)) {
-                    allpred.add(edge.get(1));
-                } else if (edge.get(1).equals(v)) {
-                    allpred.add(edge.get(0));
-                }
-            }
-            return allpred;
+    @Override
+    void compact(final int v) {
+        super.compact(v);
+        if (v < incoming.length && incoming[v] != null) {
+            incoming[v].removeIf(u -> edgeId(u, v) == 0);
+        }
+    }
+
+    /** Make the predecessors of each vertex V of mine be
+     *  SOURCES[OFFSETS[V] .. OFFSETS[V + 1] - 1], which must agree with my
+     *  successor lists (see GraphObj.loadSuccessors). */
+    void loadPredecessors(int[] offsets, int[] sources) {
+        incoming = new IntList[offsets.length - 1];
+        for (int v = 1; v < offsets.length - 1; v += 1) {
+            incoming[v] = new IntList(sources, offsets[v], offsets[v + 1]);
         }
     }
+
+    /** Return the list of predecessors of V in edge insertion order,
+     *  creating it if needed.  V must be one of my vertices. */
+    private IntList inEdges(int v) {
+        if (v >= incoming.length) {
+            incoming = Arrays.copyOf(incoming,
+                                     Math.max(v + 1, 2 * incoming.length));
+        }
+        if (incoming[v] == null) {
+            incoming[v] = new IntList();
+        }
+        return incoming[v];
+    }
+
+    /** Predecessor lists, indexed by vertex number, kept up to date as
+     *  edges are added and removed.  Null for vertices that
+     *  have no list yet. */
+    private IntList[] incoming = new IntList[1];
 }
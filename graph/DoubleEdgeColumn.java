@@ -0,0 +1,70 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+
+/** A double value for each edge of a LabeledGraph, stored in an array
+ *  indexed by edge id.  Unlike an edge label, a value is read without
+ *  following a pointer or unboxing anything, which suits numeric edge
+ *  attributes, such as weights, that are consulted in the inner loops of
+ *  searches.  Columns are created by LabeledGraph.doubleColumn, which
+ *  keeps them in step with the graph: the value of a removed edge reverts
+ *  to the column's default.
+ *  @author Wenhan Jin
+ */
+public class DoubleEdgeColumn {
+
+    /** A column for the edges of G whose values are initially DFLT. */
+    DoubleEdgeColumn(Graph G, double dflt) {
+        _G = G;
+        _default = dflt;
+        _values = new double[INITIAL_CAPACITY];
+        Arrays.fill(_values, dflt);
+    }
+
+    /** Returns the default value of my entries. */
+    public double getDefault() {
+        return _default;
+    }
+
+    /** Returns the value for edge (U, V), or the default value if there is
+     *  no such edge. */
+    public double get(int u, int v) {
+        int e = _G.edgeId(u, v);
+        return e < _values.length ? _values[e] : _default;
+    }
+
+    /** Set the value for edge (U, V), which must be an edge of my
+     *  graph, to X. */
+    public void set(int u, int v, double x) {
+        int e = _G.edgeId(u, v);
+        if (e == 0) {
+            throw new IllegalArgumentException("no such edge");
+        }
+        if (e >= _values.length) {
+            int n = _values.length;
+            _values = Arrays.copyOf(_values, Math.max(e + 1, 2 * n));
+            Arrays.fill(_values, n, _values.length, _default);
+        }
+        _values[e] = x;
+    }
+
+    /** Reset the value for the edge whose id is E to the default. */
+    void clear(int e) {
+        if (e < _values.length) {
+            _values[e] = _default;
+        }
+    }
+
+    /** Initial length of _values. */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** The graph whose edges I describe. */
+    private final Graph _G;
+    /** The value of edges that have not been set. */
+    private final double _default;
+    /** Values indexed by edge id.  Entry 0 (which is never an edge id)
+     *  is always the default. */
+    private double[] _values;
+}
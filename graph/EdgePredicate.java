@@ -0,0 +1,14 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+/** A condition on the edges of a graph, given by their end points.
+ *  @author Wenhan Jin
+ */
+@FunctionalInterface
+public interface EdgePredicate {
+
+    /** Returns true iff edge (U, V) satisfies me. */
+    boolean test(int u, int v);
+
+}
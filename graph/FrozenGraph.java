@@ -0,0 +1,369 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/** An immutable copy of the structure of some other Graph, stored in
+ *  compressed sparse row (CSR) form: the successors of vertex V are
+ *  _targets[_offsets[V] .. _offsets[V + 1] - 1].  Optionally, the
+ *  predecessors of each vertex of a directed graph are stored the same
+ *  way.  Vertex numbers are those of the original graph, and successors
+ *  are kept in the order in which the original graph reported them, so
+ *  that searches give the same results on the copy as on the original.
+ *  Operations that would modify the graph throw
+ *  UnsupportedOperationException.
+ *
+ *  Edge ids are positions in the CSR arrays (plus 1), and so are unrelated
+ *  to those of the original graph.
+ *  @author Wenhan Jin
+ */
+public class FrozenGraph extends Graph {
+
+    /** A frozen copy of G, which also records predecessors if G is
+     *  directed. */
+    public FrozenGraph(Graph G) {
+        this(G, true);
+    }
+
+    /** A frozen copy of G.  If G is directed, its predecessors are
+     *  recorded iff WITHPREDECESSORS; otherwise predecessors(v) and
+     *  inDegree(v) are computed by searching all edges. */
+    public FrozenGraph(Graph G, boolean withPredecessors) {
+        _directed = G.isDirected();
+        _maxVertex = G.maxVertex();
+        _present = new boolean[_maxVertex + 1];
+        _offsets = new int[_maxVertex + 2];
+        IntList targets = new IntList();
+        int vertexSize;
+        vertexSize = 0;
+        for (int v : G.vertices()) {
+            _present[v] = true;
+            vertexSize += 1;
+        }
+        _vertexSize = vertexSize;
+        for (int v = 1; v <= _maxVertex; v += 1) {
+            _offsets[v] = targets.size();
+            if (_present[v]) {
+                for (int w : G.successors(v)) {
+                    targets.add(w);
+                }
+            }
+        }
+        _offsets[_maxVertex + 1] = targets.size();
+        _targets = targets.toArray();
+        if (_directed) {
+            _edgeSize = _targets.length;
+        } else {
+            int loops;
+            loops = 0;
+            for (int v = 1; v <= _maxVertex; v += 1) {
+                for (int k = _offsets[v]; k < _offsets[v + 1]; k += 1) {
+                    if (_targets[k] == v) {
+                        loops += 1;
+                    }
+                }
+            }
+            _edgeSize = (_targets.length + loops) / 2;
+        }
+        if (_directed && withPredecessors) {
+            _inOffsets = new int[_maxVertex + 2];
+            _sources = new int[_targets.length];
+            for (int w : _targets) {
+                _inOffsets[w + 1] += 1;
+            }
+            for (int v = 1; v <= _maxVertex + 1; v += 1) {
+                _inOffsets[v] += _inOffsets[v - 1];
+            }
+            int[] next = new int[_maxVertex + 1];
+            System.arraycopy(_inOffsets, 0, next, 0, _maxVertex + 1);
+            for (int u = 1; u <= _maxVertex; u += 1) {
+                for (int k = _offsets[u]; k < _offsets[u + 1]; k += 1) {
+                    int w = _targets[k];
+                    _sources[next[w]] = u;
+                    next[w] += 1;
+                }
+            }
+        } else {
+            _inOffsets = null;
+            _sources = null;
+        }
+    }
+
+    /** Returns the approximate number of bytes occupied by my
+     *  representation of the graph. */
+    public long sizeInBytes() {
+        long size = 4L * (_offsets.length + _targets.length)
+            + _present.length;
+        if (_sources != null) {
+            size += 4L * (_inOffsets.length + _sources.length);
+        }
+        return size;
+    }
+
+    /** Returns the start of the successors of each vertex in targets(),
+     *  indexed by vertex, followed by targets().length.  Not a copy. */
+    int[] offsets() {
+        return _offsets;
+    }
+
+    /** Returns my concatenated successor lists.  Not a copy. */
+    int[] targets() {
+        return _targets;
+    }
+
+    /** Returns the start of the predecessors of each vertex in sources(),
+     *  as for offsets(), or null if predecessors are not recorded.  Not a
+     *  copy. */
+    int[] inOffsets() {
+        return _inOffsets;
+    }
+
+    /** Returns my concatenated predecessor lists, or null.  Not a copy. */
+    int[] sources() {
+        return _sources;
+    }
+
+    @Override
+    public int vertexSize() {
+        return _vertexSize;
+    }
+
+    @Override
+    public int maxVertex() {
+        return _maxVertex;
+    }
+
+    @Override
+    public int edgeSize() {
+        return _edgeSize;
+    }
+
+    @Override
+    public boolean isDirected() {
+        return _directed;
+    }
+
+    @Override
+    public int outDegree(int v) {
+        if (!contains(v)) {
+            return 0;
+        }
+        return _offsets[v + 1] - _offsets[v];
+    }
+
+    @Override
+    public int inDegree(int v) {
+        if (!contains(v)) {
+            return 0;
+        } else if (!_directed) {
+            return outDegree(v);
+        } else if (_sources != null) {
+            return _inOffsets[v + 1] - _inOffsets[v];
+        }
+        int n;
+        n = 0;
+        for (int w : _targets) {
+            if (w == v) {
+                n += 1;
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public boolean contains(int u) {
+        return u > 0 && u <= _maxVertex && _present[u];
+    }
+
+    @Override
+    public boolean contains(int u, int v) {
+        return contains(v) && find(u, v) >= 0;
+    }
+
+    @Override
+    public int add() {
+        throw frozen();
+    }
+
+    @Override
+    public int add(int u, int v) {
+        throw frozen();
+    }
+
+    @Override
+    public void remove(int v) {
+        throw frozen();
+    }
+
+    @Override
+    public void remove(int u, int v) {
+        throw frozen();
+    }
+
+    @Override
+    public Iteration<Integer> vertices() {
+        return verticesInt();
+    }
+
+    @Override
+    public IntIteration verticesInt() {
+        return new IntIteration() {
+            @Override
+            public boolean hasNext() {
+                while (_v <= _maxVertex && !_present[_v]) {
+                    _v += 1;
+                }
+                return _v <= _maxVertex;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                _v += 1;
+                return _v - 1;
+            }
+
+            /** Candidate for the next vertex. */
+            private int _v = 1;
+        };
+    }
+
+    @Override
+    public Iteration<Integer> successors(int v) {
+        return successorsInt(v);
+    }
+
+    @Override
+    public IntIteration successorsInt(int v) {
+        if (!contains(v)) {
+            return IntIteration.empty();
+        }
+        return IntIteration.intIteration(_targets,
+                                         _offsets[v], _offsets[v + 1]);
+    }
+
+    @Override
+    public Iteration<Integer> predecessors(int v) {
+        return predecessorsInt(v);
+    }
+
+    @Override
+    public IntIteration predecessorsInt(int v) {
+        if (!contains(v)) {
+            return IntIteration.empty();
+        } else if (!_directed) {
+            return successorsInt(v);
+        } else if (_sources != null) {
+            return IntIteration.intIteration(_sources,
+                                             _inOffsets[v], _inOffsets[v + 1]);
+        }
+        IntList result = new IntList();
+        for (int u = 1; u <= _maxVertex; u += 1) {
+            for (int k = _offsets[u]; k < _offsets[u + 1]; k += 1) {
+                if (_targets[k] == v) {
+                    result.add(u);
+                }
+            }
+        }
+        return result.iteration();
+    }
+
+    @Override
+    public void forEachSuccessor(int v, IntConsumer action) {
+        if (contains(v)) {
+            for (int k = _offsets[v]; k < _offsets[v + 1]; k += 1) {
+                action.accept(_targets[k]);
+            }
+        }
+    }
+
+    @Override
+    public Iteration<int[]> edges() {
+        return new Iteration<int[]>() {
+            @Override
+            public boolean hasNext() {
+                while (_k < _targets.length) {
+                    while (_k >= _offsets[_u + 1]) {
+                        _u += 1;
+                    }
+                    if (_directed || _u <= _targets[_k]) {
+                        return true;
+                    }
+                    _k += 1;
+                }
+                return false;
+            }
+
+            @Override
+            public int[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                _edge[0] = _u;
+                _edge[1] = _targets[_k];
+                _k += 1;
+                return _edge;
+            }
+
+            /** Source vertex of the edge at _k. */
+            private int _u = 0;
+            /** Position in _targets of the next candidate edge. */
+            private int _k = 0;
+            /** The array returned by next(). */
+            private final int[] _edge = new int[2];
+        };
+    }
+
+    @Override
+    protected int edgeId(int u, int v) {
+        if (!contains(v)) {
+            return 0;
+        }
+        if (!_directed && u > v) {
+            return find(v, u) + 1;
+        }
+        return find(u, v) + 1;
+    }
+
+    /** Returns the position of V in _targets among the successors of U,
+     *  or -1 if V is not a successor of U. */
+    private int find(int u, int v) {
+        if (!contains(u)) {
+            return -1;
+        }
+        for (int k = _offsets[u]; k < _offsets[u + 1]; k += 1) {
+            if (_targets[k] == v) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns the exception thrown by attempts to modify me. */
+    private static UnsupportedOperationException frozen() {
+        return new UnsupportedOperationException("graph is frozen");
+    }
+
+    /** True iff I am directed. */
+    private final boolean _directed;
+    /** My maximum vertex number. */
+    private final int _maxVertex;
+    /** Number of vertices and of edges. */
+    private final int _vertexSize, _edgeSize;
+    /** _present[V] is true iff V is one of my vertices. */
+    private final boolean[] _present;
+    /** Start of the successors of V in _targets, indexed by V.  The
+     *  final entry is _targets.length. */
+    private final int[] _offsets;
+    /** Concatenated successor lists. */
+    private final int[] _targets;
+    /** Start of the predecessors of V in _sources, or null if
+     *  predecessors are not recorded. */
+    private final int[] _inOffsets;
+    /** Concatenated predecessor lists, or null. */
+    private final int[] _sources;
+}
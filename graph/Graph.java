@@ -1,5 +1,7 @@
 package graph;
 
+import java.util.function.IntConsumer;
+
 /* Do not add or remove public or protected members, or modify the signatures of
  * any public methods.  Do not add or remove public classes.
  *
@@ -78,11 +80,14 @@ public abstract class Graph {
     public abstract Iteration<Integer> vertices();
 
     /** Returns an iteration over all successors of V.
-     *  Empty if V is not my vertex. */
+     *  Empty if V is not my vertex.  I must not be modified while the
+     *  iteration is in progress; implementations may throw
+     *  ConcurrentModificationException if I am. */
     public abstract Iteration<Integer> successors(int v);
 
     /** Returns an iteration over all predecessors of V.
-     *  Empty if V is not my vertex. */
+     *  Empty if V is not my vertex.  As for successors, I must not be
+     *  modified while the iteration is in progress. */
     public abstract Iteration<Integer> predecessors(int v);
 
     /** Returns successors(V).  This is a synonym typically used on
@@ -91,6 +96,33 @@ public abstract class Graph {
         return successors(v);
     }
 
+    /** Returns vertices() as an IntIteration, whose items may be fetched
+     *  without boxing.  This default implementation simply wraps
+     *  vertices(). */
+    public IntIteration verticesInt() {
+        return IntIteration.intIteration(vertices());
+    }
+
+    /** Returns successors(V) as an IntIteration.  This default
+     *  implementation simply wraps successors(V). */
+    public IntIteration successorsInt(int v) {
+        return IntIteration.intIteration(successors(v));
+    }
+
+    /** Returns predecessors(V) as an IntIteration.  This default
+     *  implementation simply wraps predecessors(V). */
+    public IntIteration predecessorsInt(int v) {
+        return IntIteration.intIteration(predecessors(v));
+    }
+
+    /** Call ACTION.accept(W) for each successor W of V, in the order
+     *  given by successors(V). */
+    public void forEachSuccessor(int v, IntConsumer action) {
+        for (IntIteration it = successorsInt(v); it.hasNext(); ) {
+            action.accept(it.nextInt());
+        }
+    }
+
     /** Returns an iteration over all edges in me.  Edges are returned
      *  as two-element arrays (u, v), which are directed if the graph
      *  is.  The values in the array returned by .next() may have changed
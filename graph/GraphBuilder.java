@@ -0,0 +1,342 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/** Accumulates the vertices and edges of a graph and then creates it in
+ *  one step.  Edges are buffered as primitive (U, V) pairs, and build()
+ *  sorts them and discards duplicates in a single pass, so that loading
+ *  E edges takes O(E log E) time rather than the cost of E separate calls
+ *  to Graph.add(u, v).  For example,
+ *      Graph G = new GraphBuilder(true).vertices(4)
+ *                   .addEdge(1, 2).addEdge(2, 3).addEdge(1, 2).build();
+ *  produces a DirectedGraph with vertices 1-4 and two edges.  Duplicate
+ *  edges (including (V, U) after (U, V) in an undirected graph) are
+ *  added once, as for Graph.add(u, v).  The successors of each vertex in
+ *  the result are in increasing order.
+ *
+ *  After a call to parallel(), build() divides the work of constructing
+ *  the adjacency lists among the tasks of a ForkJoinPool, which helps for
+ *  inputs of millions of edges.  The result is the same as for
+ *  sequential construction.
+ *  @author Wenhan Jin
+ */
+public class GraphBuilder {
+
+    /** A builder for a directed graph if DIRECTED, and otherwise for an
+     *  undirected graph. */
+    public GraphBuilder(boolean directed) {
+        _directed = directed;
+        _keys = new long[INITIAL_CAPACITY];
+    }
+
+    /** Make the result have at least the vertices 1 .. N.  By default, the
+     *  vertices are 1 through the largest end point of any edge.
+     *  Returns this builder. */
+    public GraphBuilder vertices(int n) {
+        if (n < 0) {
+            throw new IllegalArgumentException("negative vertex count");
+        }
+        _numVertices = Math.max(_numVertices, n);
+        return this;
+    }
+
+    /** Add edge (U, V), where U and V are positive.  Returns this
+     *  builder. */
+    public GraphBuilder addEdge(int u, int v) {
+        if (u <= 0 || v <= 0) {
+            throw new IllegalArgumentException("vertex numbers must be "
+                                               + "positive");
+        }
+        if (_size == _keys.length) {
+            _keys = Arrays.copyOf(_keys, 2 * _keys.length);
+        }
+        _keys[_size] = key(u, v);
+        _size += 1;
+        _numVertices = Math.max(_numVertices, Math.max(u, v));
+        return this;
+    }
+
+    /** Add edges (US[i], VS[i]) for all i.  US and VS must have the same
+     *  length.  Returns this builder. */
+    public GraphBuilder addEdges(int[] us, int[] vs) {
+        if (us.length != vs.length) {
+            throw new IllegalArgumentException("mismatched edge arrays");
+        }
+        if (_size + us.length > _keys.length) {
+            _keys = Arrays.copyOf(_keys,
+                                  Math.max(_size + us.length,
+                                           2 * _keys.length));
+        }
+        for (int i = 0; i < us.length; i += 1) {
+            addEdge(us[i], vs[i]);
+        }
+        return this;
+    }
+
+    /** Add all edges delivered by EDGES, as (u, v) arrays in the form
+     *  returned by Graph.edges().  Returns this builder. */
+    public GraphBuilder addEdges(Iteration<int[]> edges) {
+        for (int[] e : edges) {
+            addEdge(e[0], e[1]);
+        }
+        return this;
+    }
+
+    /** Make build() construct the graph's adjacency lists using the
+     *  tasks of POOL.  Returns this builder. */
+    public GraphBuilder parallel(ForkJoinPool pool) {
+        _pool = pool;
+        return this;
+    }
+
+    /** Make build() construct the graph's adjacency lists using the
+     *  common ForkJoinPool.  Returns this builder. */
+    public GraphBuilder parallel() {
+        return parallel(ForkJoinPool.commonPool());
+    }
+
+    /** Returns a new DirectedGraph or UndirectedGraph (according to how
+     *  I was constructed) containing my vertices and edges.  The builder
+     *  may continue to be used afterwards. */
+    public Graph build() {
+        GraphObj result =
+            _directed ? new DirectedGraph() : new UndirectedGraph();
+        result.addVertices(_numVertices);
+        if (_pool != null) {
+            _pool.invoke(new ParallelBuild(result));
+            return result;
+        }
+        long[] keys = sortedKeys();
+        for (long key : keys) {
+            result.link((int) (key >>> Integer.SIZE), (int) key);
+        }
+        return result;
+    }
+
+    /** Returns the distinct edge keys added so far, in increasing
+     *  order. */
+    private long[] sortedKeys() {
+        Arrays.sort(_keys, 0, _size);
+        _size = dedupe(_keys, _size);
+        return Arrays.copyOf(_keys, _size);
+    }
+
+    /** Remove adjacent duplicates from the sorted sequence
+     *  KEYS[0 .. N - 1], returning the number of items that remain (at the
+     *  start of KEYS). */
+    private static int dedupe(long[] keys, int n) {
+        int m;
+        m = 0;
+        for (int i = 0; i < n; i += 1) {
+            if (m == 0 || keys[i] != keys[m - 1]) {
+                keys[m] = keys[i];
+                m += 1;
+            }
+        }
+        return m;
+    }
+
+    /** Returns the sort key for edge (U, V): U in the upper half and V in
+     *  the lower, with U <= V for undirected edges. */
+    private long key(int u, int v) {
+        if (!_directed && u > v) {
+            return ((long) v << Integer.SIZE) | u;
+        }
+        return ((long) u << Integer.SIZE) | v;
+    }
+
+    /** The construction of a graph's adjacency lists from _keys by a
+     *  set of parallel tasks.  The successor lists are built in compressed
+     *  sparse row form: each task counts the degrees of the end points
+     *  of its share of the edges, the counts are summed into row offsets,
+     *  and then each task scatters its edges into their rows.  Finally,
+     *  each row is sorted and cleared of duplicates.  Predecessor lists
+     *  of directed graphs are built from the successor lists the same
+     *  way. */
+    @SuppressWarnings("serial")
+    private class ParallelBuild extends RecursiveAction {
+
+        /** A task that fills in the adjacency lists of RESULT, which
+         *  contains vertices 1 .. _numVertices and no edges. */
+        ParallelBuild(GraphObj result) {
+            _result = result;
+        }
+
+        @Override
+        protected void compute() {
+            final int n = _numVertices;
+            final long[] keys = _keys;
+            final AtomicIntegerArray degrees =
+                new AtomicIntegerArray(n + 2);
+            forRange(0, _size, (lo, hi) -> {
+                for (int i = lo; i < hi; i += 1) {
+                    int u = (int) (keys[i] >>> Integer.SIZE);
+                    int v = (int) keys[i];
+                    degrees.incrementAndGet(u + 1);
+                    if (!_directed && u != v) {
+                        degrees.incrementAndGet(v + 1);
+                    }
+                }
+            });
+            final int[] offsets = prefixSums(degrees, n);
+            final AtomicIntegerArray next = new AtomicIntegerArray(offsets);
+            final int[] targets = new int[offsets[n + 1]];
+            forRange(0, _size, (lo, hi) -> {
+                for (int i = lo; i < hi; i += 1) {
+                    int u = (int) (keys[i] >>> Integer.SIZE);
+                    int v = (int) keys[i];
+                    targets[next.getAndIncrement(u)] = v;
+                    if (!_directed && u != v) {
+                        targets[next.getAndIncrement(v)] = u;
+                    }
+                }
+            });
+            int[][] out = sortRows(offsets, targets);
+            _result.loadSuccessors(out[0], out[1]);
+            if (_directed) {
+                int[][] in = transpose(out[0], out[1]);
+                ((DirectedGraph) _result).loadPredecessors(in[0], in[1]);
+            }
+        }
+
+        /** Returns the offsets and sources of the predecessor lists of the
+         *  directed graph whose successor lists are TARGETS, divided
+         *  into rows by OFFSETS. */
+        private int[][] transpose(final int[] offsets, final int[] targets) {
+            final int n = _numVertices;
+            final AtomicIntegerArray degrees =
+                new AtomicIntegerArray(n + 2);
+            forRange(0, targets.length, (lo, hi) -> {
+                for (int k = lo; k < hi; k += 1) {
+                    degrees.incrementAndGet(targets[k] + 1);
+                }
+            });
+            final int[] inOffsets = prefixSums(degrees, n);
+            final AtomicIntegerArray next = new AtomicIntegerArray(inOffsets);
+            final int[] sources = new int[targets.length];
+            forRange(1, n + 1, (lo, hi) -> {
+                for (int u = lo; u < hi; u += 1) {
+                    for (int k = offsets[u]; k < offsets[u + 1]; k += 1) {
+                        sources[next.getAndIncrement(targets[k])] = u;
+                    }
+                }
+            });
+            return sortRows(inOffsets, sources);
+        }
+
+        /** Sort each row ITEMS[OFFSETS[V] .. OFFSETS[V + 1] - 1] and remove
+         *  its duplicates.  Returns the new offsets and items. */
+        private int[][] sortRows(final int[] offsets, final int[] items) {
+            final int n = _numVertices;
+            final AtomicIntegerArray lengths =
+                new AtomicIntegerArray(n + 2);
+            forRange(1, n + 1, (lo, hi) -> {
+                for (int v = lo; v < hi; v += 1) {
+                    Arrays.sort(items, offsets[v], offsets[v + 1]);
+                    int m;
+                    m = 0;
+                    for (int k = offsets[v]; k < offsets[v + 1]; k += 1) {
+                        int last = offsets[v] + m - 1;
+                        if (m == 0 || items[k] != items[last]) {
+                            items[offsets[v] + m] = items[k];
+                            m += 1;
+                        }
+                    }
+                    lengths.set(v + 1, m);
+                }
+            });
+            final int[] newOffsets = prefixSums(lengths, n);
+            if (newOffsets[n + 1] == items.length) {
+                return new int[][] { offsets, items };
+            }
+            final int[] newItems = new int[newOffsets[n + 1]];
+            forRange(1, n + 1, (lo, hi) -> {
+                for (int v = lo; v < hi; v += 1) {
+                    System.arraycopy(items, offsets[v],
+                                     newItems, newOffsets[v],
+                                     newOffsets[v + 1] - newOffsets[v]);
+                }
+            });
+            return new int[][] { newOffsets, newItems };
+        }
+
+        /** The graph being filled in. */
+        private final GraphObj _result;
+    }
+
+    /** Returns row offsets for N rows whose lengths are COUNTS[1 .. N + 1]
+     *  (the length of row V being at COUNTS[V + 1]).  The result R has
+     *  R[V] = the start of row V, and R[N + 1] = the total length.  This
+     *  is a sequential scan, costing O(N) like the copy from COUNTS, so
+     *  that it stays on the current thread rather than the common
+     *  pool. */
+    private static int[] prefixSums(AtomicIntegerArray counts, int n) {
+        int[] result = new int[n + 2];
+        for (int v = 1; v < n + 2; v += 1) {
+            result[v] = result[v - 1] + counts.get(v);
+        }
+        return result;
+    }
+
+    /** Run BODY on subranges that together make up [LO .. HI - 1], as
+     *  parallel subtasks of the current ForkJoinTask. */
+    private static void forRange(int lo, int hi, RangeBody body) {
+        new RangeTask(lo, hi, body).invoke();
+    }
+
+    /** An action on a range of integers. */
+    private interface RangeBody {
+        /** Perform the action on LO .. HI - 1. */
+        void run(int lo, int hi);
+    }
+
+    /** A task that applies a RangeBody to a range, splitting it among
+     *  subtasks if it is large. */
+    @SuppressWarnings("serial")
+    private static class RangeTask extends RecursiveAction {
+        /** A task applying BODY to LO .. HI - 1. */
+        RangeTask(int lo, int hi, RangeBody body) {
+            _lo = lo;
+            _hi = hi;
+            _body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (_hi - _lo <= GRAIN) {
+                _body.run(_lo, _hi);
+            } else {
+                int mid = (_lo + _hi) >>> 1;
+                invokeAll(new RangeTask(_lo, mid, _body),
+                          new RangeTask(mid, _hi, _body));
+            }
+        }
+
+        /** Bounds of my range. */
+        private final int _lo, _hi;
+        /** The action to perform. */
+        private final RangeBody _body;
+    }
+
+    /** Size of range below which a RangeTask does not split. */
+    private static final int GRAIN = 1 << 13;
+
+    /** Initial size of _keys. */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** True iff I build directed graphs. */
+    private final boolean _directed;
+    /** The number of vertices to create. */
+    private int _numVertices;
+    /** Keys of the edges added so far, in _keys[0 .. _size - 1]. */
+    private long[] _keys;
+    /** Number of edge keys in _keys. */
+    private int _size;
+    /** The pool used to build graphs, or null to build sequentially. */
+    private ForkJoinPool _pool;
+}
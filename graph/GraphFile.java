@@ -0,0 +1,119 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.io.IOException;
+
+/** The binary file format shared by MappedGraph and GraphIO.
+ *
+ *  A file consists of a header of HEADER_SIZE bytes; a bitmap of the
+ *  vertices present, in longs; the start of each successor list, in
+ *  longs; the concatenated successor lists, in ints, padded to a multiple
+ *  of 8 bytes; for directed graphs written with predecessors, the same two
+ *  arrays for the predecessor lists; and, if the LABELED flag is set,
+ *  labels in a form defined by GraphIO.  All values are big-endian and
+ *  aligned to their size.
+ *
+ *  The header holds, at the byte positions given by the constants below,
+ *  MAGIC, VERSION, the flags, the maximum vertex, the numbers of vertices
+ *  and edges, and the lengths of the concatenated successor and
+ *  predecessor lists; the rest is zero.
+ *  @author Wenhan Jin
+ */
+class GraphFile {
+
+    /** Write to OUT the header, vertex bitmap, and adjacency lists of G,
+     *  including its predecessor lists iff G is directed and
+     *  WITHPREDECESSORS.  The header's flags also include EXTRAFLAGS. */
+    static void writeStructure(Graph G, boolean withPredecessors,
+                               int extraFlags, ChannelSink out)
+        throws IOException {
+        int maxVertex = G.maxVertex();
+        boolean directed = G.isDirected();
+        boolean preds = directed && withPredecessors;
+        long[] present = new long[bitmapLength(maxVertex)];
+        long entries, inEntries;
+        entries = inEntries = 0;
+        for (IntIteration it = G.verticesInt(); it.hasNext(); ) {
+            int v = it.nextInt();
+            present[v / Long.SIZE] |= 1L << (v % Long.SIZE);
+            entries += G.outDegree(v);
+            inEntries += preds ? G.inDegree(v) : 0;
+        }
+        out.putInt(MAGIC);
+        out.putInt(VERSION);
+        out.putInt((directed ? DIRECTED : 0) | (preds ? PREDECESSORS : 0)
+                   | extraFlags);
+        out.putInt(maxVertex);
+        out.putInt(G.vertexSize());
+        out.putInt(G.edgeSize());
+        out.putLong(entries);
+        out.putLong(inEntries);
+        while (out.position() < HEADER_SIZE) {
+            out.putLong(0);
+        }
+        for (long word : present) {
+            out.putLong(word);
+        }
+        writeLists(G, maxVertex, false, out);
+        if (preds) {
+            writeLists(G, maxVertex, true, out);
+        }
+    }
+
+    /** Returns the number of longs in the vertex bitmap of a graph whose
+     *  maximum vertex is MAXVERTEX. */
+    static int bitmapLength(int maxVertex) {
+        return maxVertex / Long.SIZE + 1;
+    }
+
+    /** Returns N rounded up to a multiple of 8. */
+    static long padded(long n) {
+        return (n + Long.BYTES - 1) & -Long.BYTES;
+    }
+
+    /** Write to OUT the starts and then the contents of the successor
+     *  lists of the vertices of G, or of the predecessor lists if
+     *  INCOMING, padded to a multiple of 8 bytes.  MAXVERTEX is
+     *  G.maxVertex(). */
+    private static void writeLists(Graph G, int maxVertex,
+                                   boolean incoming, ChannelSink out)
+        throws IOException {
+        long start;
+        start = 0;
+        out.putLong(0);
+        for (int v = 1; v <= maxVertex + 1; v += 1) {
+            out.putLong(start);
+            if (v <= maxVertex && G.contains(v)) {
+                start += incoming ? G.inDegree(v) : G.outDegree(v);
+            }
+        }
+        for (int v = 1; v <= maxVertex; v += 1) {
+            IntIteration it =
+                incoming ? G.predecessorsInt(v) : G.successorsInt(v);
+            while (it.hasNext()) {
+                out.putInt(it.nextInt());
+            }
+        }
+        while (out.position() % Long.BYTES != 0) {
+            out.putInt(0);
+        }
+    }
+
+    /** GraphFile has only static members. */
+    private GraphFile() {
+    }
+
+    /** Identifies graph files. */
+    static final int MAGIC = 0x47524146;
+    /** Version of the file format. */
+    static final int VERSION = 1;
+    /** Header flag bits. */
+    static final int DIRECTED = 1, PREDECESSORS = 2, LABELED = 4;
+    /** Byte positions of the header fields after MAGIC. */
+    static final int VERSION_POS = 4, FLAGS_POS = 8, MAX_VERTEX_POS = 12,
+        VERTEX_SIZE_POS = 16, EDGE_SIZE_POS = 20, ENTRIES_POS = 24,
+        IN_ENTRIES_POS = 32;
+    /** Size of the header, in bytes. */
+    static final int HEADER_SIZE = 64;
+}
@@ -0,0 +1,343 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/** Saving graphs to files in a binary format, and loading them again.
+ *  save writes the vertices and edges of any Graph, and load recreates
+ *  them as a DirectedGraph or UndirectedGraph with the same vertex
+ *  numbers (including any gaps left by removed vertices) and the same
+ *  order of successors and predecessors.  The labels of a LabeledGraph
+ *  may be saved along with its structure, using a LabelCodec for each
+ *  type of label.  For example,
+ *      GraphIO.save(G, file, GraphIO.STRINGS, GraphIO.STRINGS);
+ *      LabeledGraph<String, String> H =
+ *          GraphIO.load(file, GraphIO.STRINGS, GraphIO.STRINGS);
+ *
+ *  Files are written through a FileChannel.  Loading maps the file into
+ *  memory and copies each adjacency array out of it with a single bulk
+ *  transfer, after which the graph is built directly from the arrays,
+ *  without adding its edges one at a time.
+ *
+ *  Files have the format described in GraphFile, which MappedGraph also
+ *  uses: save records predecessors for directed graphs, and load accepts
+ *  files written by MappedGraph.write, with or without them.  For labeled
+ *  graphs, the structure is followed by the labels of the vertices in
+ *  increasing order and then of the edges in the order of the successor
+ *  lists (once for each undirected edge), each as a length (-1 for null)
+ *  and that many bytes.  load rejects files of other versions and files
+ *  that are truncated or inconsistent with their headers.
+ *  @author Wenhan Jin
+ */
+public class GraphIO {
+
+    /** A codec for String labels, which uses UTF-8. */
+    public static final LabelCodec<String> STRINGS =
+        new LabelCodec<String>() {
+            @Override
+            public byte[] encode(String label) {
+                return label.getBytes(StandardCharsets.UTF_8);
+            }
+
+            @Override
+            public String decode(byte[] bytes) {
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        };
+
+    /** Write the vertices and edges of G to FILE, replacing any previous
+     *  contents. */
+    public static void save(Graph G, Path file) throws IOException {
+        write(G, file, null, null, null);
+    }
+
+    /** Write the vertices, edges, and labels of G to FILE, replacing any
+     *  previous contents.  Vertex labels are written by VERTEXCODEC and
+     *  edge labels by EDGECODEC. */
+    public static <VL, EL> void save(LabeledGraph<VL, EL> G, Path file,
+                                     LabelCodec<? super VL> vertexCodec,
+                                     LabelCodec<? super EL> edgeCodec)
+        throws IOException {
+        write(G, file, G, vertexCodec, edgeCodec);
+    }
+
+    /** Returns a new DirectedGraph or UndirectedGraph with the vertices
+     *  and edges saved in FILE.  Any labels in FILE are ignored. */
+    public static Graph load(Path file) throws IOException {
+        return new Reader(file).graph();
+    }
+
+    /** Returns a new LabeledGraph with the vertices, edges, and labels
+     *  saved in FILE, whose vertex labels are read by VERTEXCODEC and edge
+     *  labels by EDGECODEC.  If FILE has no labels, all labels are
+     *  null. */
+    public static <VL, EL> LabeledGraph<VL, EL>
+        load(Path file, LabelCodec<VL> vertexCodec,
+             LabelCodec<EL> edgeCodec) throws IOException {
+        Reader reader = new Reader(file);
+        LabeledGraph<VL, EL> result = new LabeledGraph<>(reader.graph());
+        reader.readLabels(result, vertexCodec, edgeCodec);
+        return result;
+    }
+
+    /** Write G to FILE.  If LABELS is non-null, it is G, and its labels
+     *  are written by VERTEXCODEC and EDGECODEC. */
+    private static <VL, EL> void write(Graph G, Path file,
+                                       LabeledGraph<VL, EL> labels,
+                                       LabelCodec<? super VL> vertexCodec,
+                                       LabelCodec<? super EL> edgeCodec)
+        throws IOException {
+        int maxVertex = G.maxVertex();
+        boolean directed = G.isDirected();
+        try (FileChannel channel =
+             FileChannel.open(file, StandardOpenOption.CREATE,
+                              StandardOpenOption.WRITE,
+                              StandardOpenOption.TRUNCATE_EXISTING)) {
+            ChannelSink out = new ChannelSink(channel);
+            GraphFile.writeStructure(G, true,
+                                     labels != null ? GraphFile.LABELED : 0,
+                                     out);
+            if (labels != null) {
+                for (IntIteration it = G.verticesInt(); it.hasNext(); ) {
+                    writeLabel(labels.getLabel(it.nextInt()),
+                               vertexCodec, out);
+                }
+                for (int u = 1; u <= maxVertex; u += 1) {
+                    for (IntIteration it = G.successorsInt(u);
+                         it.hasNext(); ) {
+                        int v = it.nextInt();
+                        if (directed || u <= v) {
+                            writeLabel(labels.getLabel(u, v), edgeCodec,
+                                       out);
+                        }
+                    }
+                }
+            }
+            out.flush();
+        }
+    }
+
+    /** Write LABEL, encoded by CODEC, to OUT. */
+    private static <T> void writeLabel(T label, LabelCodec<? super T> codec,
+                                       ChannelSink out)
+        throws IOException {
+        if (label == null) {
+            out.putInt(-1);
+        } else {
+            byte[] bytes = codec.encode(label);
+            out.putInt(bytes.length);
+            out.putBytes(bytes);
+        }
+    }
+
+    /** The contents of a file written by save. */
+    private static class Reader {
+        /** Map FILE and read the structure of the graph it contains. */
+        Reader(Path file) throws IOException {
+            try (FileChannel channel =
+                 FileChannel.open(file, StandardOpenOption.READ)) {
+                if (channel.size() > Integer.MAX_VALUE) {
+                    throw new IOException("graph file too large: " + file);
+                }
+                _in = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                                  channel.size());
+            }
+            if (_in.limit() < GraphFile.HEADER_SIZE
+                || _in.getInt(0) != GraphFile.MAGIC) {
+                throw new IOException("not a graph file: " + file);
+            } else if (_in.getInt(GraphFile.VERSION_POS)
+                       != GraphFile.VERSION) {
+                throw new IOException("unsupported graph file version: "
+                                      + file);
+            }
+            int flags = _in.getInt(GraphFile.FLAGS_POS);
+            int maxVertex = _in.getInt(GraphFile.MAX_VERTEX_POS);
+            long entries = _in.getLong(GraphFile.ENTRIES_POS),
+                inEntries = _in.getLong(GraphFile.IN_ENTRIES_POS);
+            if (maxVertex < 0 || entries < 0 || inEntries < 0) {
+                throw new IOException("corrupt graph file: " + file);
+            }
+            _directed = (flags & GraphFile.DIRECTED) != 0;
+            _labeled = (flags & GraphFile.LABELED) != 0;
+            _in.position(GraphFile.HEADER_SIZE);
+            _present = getLongs(_in, GraphFile.bitmapLength(maxVertex));
+            _offsets = getOffsets(_in, maxVertex, entries);
+            _targets = getTargets(_in, maxVertex, entries);
+            _graph = _directed ? new DirectedGraph() : new UndirectedGraph();
+            _graph.addVertices(maxVertex);
+            _graph.loadSuccessors(_offsets, _targets);
+            if (_directed && (flags & GraphFile.PREDECESSORS) != 0) {
+                int[] inOffsets = getOffsets(_in, maxVertex, inEntries);
+                int[] sources = getTargets(_in, maxVertex, inEntries);
+                ((DirectedGraph) _graph).loadPredecessors(inOffsets,
+                                                          sources);
+            } else if (_directed) {
+                loadReversed((DirectedGraph) _graph);
+            }
+            for (int v = maxVertex; v >= 1; v -= 1) {
+                if (!isPresent(v)) {
+                    _graph.remove(v);
+                }
+            }
+        }
+
+        /** Returns the graph read from my file. */
+        Graph graph() {
+            return _graph;
+        }
+
+        /** Set the labels of LABELS, a labeling of graph(), from my file,
+         *  if it has labels, using VERTEXCODEC and EDGECODEC. */
+        <VL, EL> void readLabels(LabeledGraph<VL, EL> labels,
+                                 LabelCodec<VL> vertexCodec,
+                                 LabelCodec<EL> edgeCodec)
+            throws IOException {
+            if (!_labeled) {
+                return;
+            }
+            for (int v = 1; v < _offsets.length - 1; v += 1) {
+                if (isPresent(v)) {
+                    byte[] bytes = getLabel(_in);
+                    if (bytes != null) {
+                        labels.setLabel(v, vertexCodec.decode(bytes));
+                    }
+                }
+            }
+            for (int u = 1; u < _offsets.length - 1; u += 1) {
+                for (int k = _offsets[u]; k < _offsets[u + 1]; k += 1) {
+                    int v = _targets[k];
+                    if (_directed || u <= v) {
+                        byte[] bytes = getLabel(_in);
+                        if (bytes != null) {
+                            labels.setLabel(u, v, edgeCodec.decode(bytes));
+                        }
+                    }
+                }
+            }
+        }
+
+        /** Give G, whose successors are _offsets and _targets, the
+         *  corresponding predecessor lists. */
+        private void loadReversed(DirectedGraph G) {
+            int[] inOffsets = new int[_offsets.length];
+            int[] sources = new int[_targets.length];
+            for (int w : _targets) {
+                inOffsets[w + 1] += 1;
+            }
+            for (int v = 1; v < inOffsets.length; v += 1) {
+                inOffsets[v] += inOffsets[v - 1];
+            }
+            int[] next = Arrays.copyOf(inOffsets, inOffsets.length - 1);
+            for (int u = 1; u < _offsets.length - 1; u += 1) {
+                for (int k = _offsets[u]; k < _offsets[u + 1]; k += 1) {
+                    int w = _targets[k];
+                    sources[next[w]] = u;
+                    next[w] += 1;
+                }
+            }
+            G.loadPredecessors(inOffsets, sources);
+        }
+
+        /** Returns true iff V is a vertex of graph(). */
+        private boolean isPresent(int v) {
+            return (_present[v / Long.SIZE] & (1L << (v % Long.SIZE))) != 0;
+        }
+
+        /** The mapped file, positioned after the part already read. */
+        private final ByteBuffer _in;
+        /** True iff the graph is directed, and iff the file has labels. */
+        private final boolean _directed, _labeled;
+        /** Bitmap of the vertices present. */
+        private final long[] _present;
+        /** Starts of the successor lists, and the lists. */
+        private final int[] _offsets, _targets;
+        /** The graph read. */
+        private final GraphObj _graph;
+    }
+
+    /** Returns the next N longs from IN, advancing past them. */
+    private static long[] getLongs(ByteBuffer in, int n) throws IOException {
+        require(in, (long) Long.BYTES * n);
+        long[] result = new long[n];
+        in.asLongBuffer().get(result);
+        in.position(in.position() + Long.BYTES * n);
+        return result;
+    }
+
+    /** Returns the starts of the adjacency lists of the vertices 0 ..
+     *  MAXVERTEX + 1 of a graph, read from IN, which are checked to lie
+     *  between 0 and ENTRIES, the total length of the lists. */
+    private static int[] getOffsets(ByteBuffer in, int maxVertex,
+                                    long entries) throws IOException {
+        long n = (long) maxVertex + 2;
+        require(in, Long.BYTES * n);
+        if (entries > Integer.MAX_VALUE) {
+            throw new IOException("graph file too large to load");
+        }
+        int[] result = new int[(int) n];
+        long previous;
+        previous = 0;
+        for (int v = 0; v < n; v += 1) {
+            long start = in.getLong();
+            if (start < previous || start > entries) {
+                throw new IOException("corrupt graph file");
+            }
+            result[v] = (int) start;
+            previous = start;
+        }
+        if (previous != entries) {
+            throw new IOException("corrupt graph file");
+        }
+        return result;
+    }
+
+    /** Returns the next ENTRIES vertex numbers from IN, which are checked
+     *  to lie between 1 and MAXVERTEX, advancing past them and the
+     *  padding that follows. */
+    private static int[] getTargets(ByteBuffer in, int maxVertex,
+                                    long entries) throws IOException {
+        require(in, GraphFile.padded(Integer.BYTES * entries));
+        int[] result = new int[(int) entries];
+        in.asIntBuffer().get(result);
+        in.position(in.position()
+                    + (int) GraphFile.padded(Integer.BYTES * entries));
+        for (int v : result) {
+            if (v < 1 || v > maxVertex) {
+                throw new IOException("corrupt graph file");
+            }
+        }
+        return result;
+    }
+
+    /** Throw an IOException if IN has fewer than N bytes remaining. */
+    private static void require(ByteBuffer in, long n) throws IOException {
+        if (n > in.remaining()) {
+            throw new IOException("truncated graph file");
+        }
+    }
+
+    /** Returns the bytes of the next label in IN, or null if it is null,
+     *  advancing past it. */
+    private static byte[] getLabel(ByteBuffer in) throws IOException {
+        require(in, Integer.BYTES);
+        int n = in.getInt();
+        if (n < 0) {
+            return null;
+        }
+        require(in, n);
+        byte[] result = new byte[n];
+        in.get(result);
+        return result;
+    }
+
+    /** GraphIO has only static members. */
+    private GraphIO() {
+    }
+}
@@ -1,12 +1,22 @@
 package graph;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.NoSuchElementException;
 import java.util.PriorityQueue;
+import java.util.function.IntConsumer;
 
 /* See restrictions in Graph.java. */
 
 /** A partial implementation of Graph containing elements common to
- *  directed and undirected graphs.
+ *  directed and undirected graphs.  Each vertex has its own list of
+ *  successors, and a hash table maps each edge to its id, so that
+ *  successor and edge queries need not examine the whole graph.  The
+ *  set of vertices is a bit set, and the largest vertex and the numbers
+ *  of removed vertices available for reuse are kept up to date as
+ *  vertices come and go, so that vertex queries take constant time and
+ *  adding or removing a vertex takes logarithmic time (apart from the
+ *  work of removing its edges).
  *
  *  @author Wenhan Jin
  */
@@ -16,35 +26,44 @@ abstract class GraphObj extends Graph {
      * A new, empty Graph.
      */
     GraphObj() {
-        allVertices = new ArrayList<>();
-        allEdges = new ArrayList<>();
+        vertexSet = new BitSet();
     }
 
     @Override
     public int vertexSize() {
-        return allVertices.size();
+        return vertexCount;
     }
 
     @Override
     public int maxVertex() {
-        if (allVertices.isEmpty()) {
-            return 0;
-        }
-        return Collections.max(allVertices);
+        return largestVertex;
     }
 
-    /** Returns all of the vertices in this graph. */
+    /** Returns a new list of all of the vertices in this graph, in
+     *  increasing order. */
     public ArrayList<Integer> getallVertices() {
-        return allVertices;
+        ArrayList<Integer> result = new ArrayList<>(vertexCount);
+        for (IntIteration it = verticesInt(); it.hasNext(); ) {
+            result.add(it.nextInt());
+        }
+        return result;
     }
-    /** Returns all of the edges in this graph. */
+    /** Returns a new list of all of the edges in this graph, in the
+     *  order given by edges(). */
     public ArrayList<ArrayList<Integer>> getallEdges() {
-        return allEdges;
+        ArrayList<ArrayList<Integer>> result = new ArrayList<>();
+        for (int[] e : edges()) {
+            ArrayList<Integer> edge = new ArrayList<>();
+            edge.add(e[0]);
+            edge.add(e[1]);
+            result.add(edge);
+        }
+        return result;
     }
 
     @Override
     public int edgeSize() {
-        return allEdges.size();
+        return edgeCount;
     }
 
 
@@ -53,10 +72,10 @@ abstract class GraphObj extends Graph {
 
     @Override
     public int outDegree(int v) {
-        if (!allVertices.contains(v)) {
+        if (!contains(v)) {
             return 0;
         }
-        return findallsuccessors(v).size();
+        return outEdges[v].size();
     }
 
     @Override
@@ -64,139 +83,167 @@ abstract class GraphObj extends Graph {
 
     @Override
     public boolean contains(int u) {
-        return allVertices.contains(u);
+        return u > 0 && vertexSet.get(u);
     }
 
     @Override
     public boolean contains(int u, int v) {
-        ArrayList<Integer> edge = new ArrayList<>();
-        edge.add(u);
-        edge.add(v);
-        if ((allVertices.contains(u)) && (allVertices.contains(v))) {
-            if (isDirected()) {
-                for (ArrayList<Integer> i : allEdges) {
-                    if (i.equals(edge)) {
-                        return true;
-                    }
-                }
-                return false;
-            } else {
-                ArrayList<Integer> edgeSame = new ArrayList<Integer>();
-                edgeSame.add(v);
-                edgeSame.add(u);
-                for (ArrayList<Integer> i : allEdges) {
-                    if ((i.equals(edge)) || (i.equals(edgeSame))) {
-                        return true;
-                    }
-                }
-                return false;
-            }
-        }
-        return false;
+        return contains(u) && contains(v) && edgeIds.get(edgeKey(u, v)) != 0;
     }
 
     @Override
     public int add() {
-        if (allVertices.size() == 0) {
-            allVertices.add(1);
-            return 1;
+        while (!record.isEmpty() && vertexSet.get(record.peek())) {
+            record.poll();
+        }
+        int v;
+        if (!record.isEmpty() && record.peek() <= largestVertex) {
+            v = record.poll();
         } else {
-            if (record.isEmpty()) {
-                allVertices.add(maxVertex() + 1);
-                return maxVertex();
-            } else {
-                int toadd = record.poll();
-                allVertices.add(toadd);
-                return toadd;
-            }
+            v = largestVertex + 1;
+            largestVertex = v;
+        }
+        vertexSet.set(v);
+        vertexCount += 1;
+        if (v >= outEdges.length) {
+            outEdges = Arrays.copyOf(outEdges,
+                                     Math.max(v + 1, 2 * outEdges.length));
         }
+        outEdges[v] = new IntList();
+        return v;
     }
 
     @Override
     public int add(int u, int v) {
-        ArrayList<Integer> edge = new ArrayList<>();
-        edge.add(u);
-        edge.add(v);
-        if (isDirected()) {
-            if (!allEdges.contains(edge)) {
-                allEdges.add(edge);
-            }
-            return edgeId(u, v);
-        } else {
-            ArrayList<Integer> edgeSame = new ArrayList<>();
-            edgeSame.add(v);
-            edgeSame.add(u);
-            if (!allEdges.contains(edge) && (!allEdges.contains(edgeSame))) {
-                allEdges.add(edge);
-            }
-            return edgeId(u, v);
+        checkMyVertex(u);
+        checkMyVertex(v);
+        int id = edgeIds.get(edgeKey(u, v));
+        if (id == 0) {
+            id = link(u, v);
         }
+        return id;
     }
 
     @Override
     public void remove(int v) {
-        if (allVertices.contains(v)) {
-            Integer a = v;
-            allVertices.remove(a);
+        if (contains(v)) {
+            removeAll(new int[] { v });
+        }
+    }
+
+    /** Remove each of VERTICES that is one of my vertices, together with
+     *  its incident edges.  Each adjacency list that refers to a removed
+     *  vertex is compacted in a single pass, so that this takes time
+     *  proportional to the total length of the lists of the removed
+     *  vertices and of their neighbors, however many edges go. */
+    public void removeAll(int[] vertices) {
+        BitSet doomed = new BitSet();
+        for (int v : vertices) {
+            if (contains(v)) {
+                doomed.set(v);
+            }
+        }
+        BitSet touched = new BitSet();
+        for (int v = doomed.nextSetBit(0); v >= 0;
+             v = doomed.nextSetBit(v + 1)) {
+            dropEdges(v, doomed, touched);
+        }
+        for (int w = touched.nextSetBit(0); w >= 0;
+             w = touched.nextSetBit(w + 1)) {
+            compact(w);
+        }
+        for (int v = doomed.nextSetBit(0); v >= 0;
+             v = doomed.nextSetBit(v + 1)) {
+            outEdges[v] = null;
+            vertexSet.clear(v);
+            vertexCount -= 1;
             record.add(v);
-            ArrayList<ArrayList<Integer>> tester = new ArrayList<>(allEdges);
-            for (ArrayList<Integer> e : tester) {
-                if (e.contains(v)) {
-                    allEdges.remove(e);
-                }
+        }
+        if (doomed.get(largestVertex)) {
+            largestVertex =
+                Math.max(0, vertexSet.previousSetBit(largestVertex));
+        }
+    }
+
+    /** Remove each edge (US[i], VS[i]) that is one of my edges.  US and
+     *  VS must have the same length.  Each adjacency list affected is
+     *  compacted once, so that this takes time proportional to the
+     *  number of edges given plus the total length of the lists of their
+     *  end points. */
+    public void removeAll(int[] us, int[] vs) {
+        if (us.length != vs.length) {
+            throw new IllegalArgumentException("mismatched edge arrays");
+        }
+        BitSet touched = new BitSet();
+        for (int i = 0; i < us.length; i += 1) {
+            int u = us[i], v = vs[i];
+            if (contains(u) && contains(v) && forget(u, v)) {
+                touched.set(u);
+                touched.set(v);
             }
         }
+        for (int w = touched.nextSetBit(0); w >= 0;
+             w = touched.nextSetBit(w + 1)) {
+            compact(w);
+        }
     }
 
     @Override
     public void remove(int u, int v) {
-        ArrayList<Integer> edge = new ArrayList<>();
-        edge.add(u);
-        edge.add(v);
-        if (isDirected()) {
-            ArrayList<ArrayList<Integer>> copy
-                    = new ArrayList<>(allEdges);
-            for (ArrayList<Integer> i : copy) {
-                if (i.equals(edge)) {
-                    allEdges.remove(i);
-                }
-            }
-        } else {
-            ArrayList<Integer> edgeback = new ArrayList<>();
-            edgeback.add(v);
-            edgeback.add(u);
-            ArrayList<ArrayList<Integer>> copy
-                    = new ArrayList<>(allEdges);
-            for (ArrayList<Integer> i : copy) {
-                if ((i.equals(edge)) || (i.equals(edgeback))) {
-                    allEdges.remove(i);
-                }
-            }
+        if (contains(u, v)) {
+            unlink(u, v);
         }
     }
 
     @Override
     public Iteration<Integer> vertices() {
-        return Iteration.iteration(allVertices);
+        return verticesInt();
     }
 
     @Override
-    public Iteration<Integer> successors(int v) {
-        ArrayList<Integer> allsuccessors = new ArrayList<>();
-        for (int[] edge : edges()) {
-            if (isDirected()) {
-                if (edge[0] == v) {
-                    allsuccessors.add(edge[1]);
-                }
-            } else {
-                if (edge[0] == v) {
-                    allsuccessors.add(edge[1]);
-                } else if (edge[1] == v) {
-                    allsuccessors.add(edge[0]);
+    public IntIteration verticesInt() {
+        return new IntIteration() {
+            @Override
+            public boolean hasNext() {
+                return _v > 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
                 }
+                int v = _v;
+                _v = vertexSet.nextSetBit(v + 1);
+                return v;
+            }
+
+            /** The next vertex, or -1 if there is none. */
+            private int _v = vertexSet.nextSetBit(1);
+        };
+    }
+
+    @Override
+    public Iteration<Integer> successors(int v) {
+        return successorsInt(v);
+    }
+
+    @Override
+    public IntIteration successorsInt(int v) {
+        if (!contains(v)) {
+            return IntIteration.empty();
+        }
+        return outEdges[v].iteration();
+    }
+
+    @Override
+    public void forEachSuccessor(int v, IntConsumer action) {
+        if (contains(v)) {
+            IntList out = outEdges[v];
+            for (int k = 0; k < out.size(); k += 1) {
+                action.accept(out.get(k));
             }
         }
-        return Iteration.iteration(allsuccessors.iterator());
     }
 
     @Override
@@ -205,11 +252,7 @@ abstract class GraphObj extends Graph {
 
     @Override
     public Iteration<int[]> edges() {
-        ArrayList<int[]> tempEdges = new ArrayList<>();
-        for (ArrayList<Integer> edge : allEdges) {
-            tempEdges.add(new int[]{edge.get(0), edge.get(1)});
-        }
-        return Iteration.iteration(tempEdges.iterator());
+        return new EdgeIteration();
     }
 
     @Override
@@ -219,42 +262,190 @@ abstract class GraphObj extends Graph {
 
     @Override
     protected int edgeId(int u, int v) {
-        if (!isDirected()) {
-            int x = Math.max(u, v);
-            int y = Math.min(u, v);
-            return ((x + y) * (x + y + 1)) / 2 + y;
+        return edgeIds.get(edgeKey(u, v));
+    }
+
+    /** Add vertices 1 .. N to me, which must be newly created. */
+    void addVertices(int n) {
+        vertexSet.set(1, n + 1);
+        vertexCount = largestVertex = n;
+        outEdges = new IntList[n + 1];
+        for (int v = 1; v <= n; v += 1) {
+            outEdges[v] = new IntList();
+        }
+    }
+
+    /** Make the successors of each vertex V of mine be
+     *  TARGETS[OFFSETS[V] .. OFFSETS[V + 1] - 1].  I must have exactly the
+     *  vertices 1 .. OFFSETS.length - 2, and no edges.  The lists must not
+     *  contain duplicates, and in an undirected graph must contain each
+     *  edge (U, V) with U != V in the lists of both U and V. */
+    void loadSuccessors(int[] offsets, int[] targets) {
+        for (int u = 1; u < offsets.length - 1; u += 1) {
+            outEdges[u] = new IntList(targets, offsets[u], offsets[u + 1]);
+            for (int k = offsets[u]; k < offsets[u + 1]; k += 1) {
+                int v = targets[k];
+                if (isDirected() || u <= v) {
+                    edgeIds.put(edgeKey(u, v), newEdgeId());
+                    edgeCount += 1;
+                }
+            }
+        }
+    }
+
+    /** Add edge (U, V) to me and return its id.  U and V must be my
+     *  vertices, and the edge must not already be present. */
+    int link(int u, int v) {
+        int id = newEdgeId();
+        edgeIds.put(edgeKey(u, v), id);
+        outEdges[u].add(v);
+        if (!isDirected() && u != v) {
+            outEdges[v].add(u);
         }
-        return ((u + v) * (u + v + 1)) / 2 + v;
+        edgeCount += 1;
+        return id;
     }
 
+    /** Remove edge (U, V), which must be present, from me. */
+    void unlink(int u, int v) {
+        forget(u, v);
+        outEdges[u].removeValue(v);
+        if (!isDirected() && u != v) {
+            outEdges[v].removeValue(u);
+        }
+    }
 
+    /** Forget all edges incident on V, which is in DOOMED, as part of
+     *  removing the vertices in DOOMED, and add to TOUCHED those of the
+     *  other end points that are not in DOOMED, whose lists must then be
+     *  compacted.  The lists themselves are not changed. */
+    void dropEdges(int v, BitSet doomed, BitSet touched) {
+        IntList out = outEdges[v];
+        for (int k = 0; k < out.size(); k += 1) {
+            int w = out.get(k);
+            forget(v, w);
+            if (!doomed.get(w)) {
+                touched.set(w);
+            }
+        }
+    }
 
+    /** Remove from the adjacency lists of V all entries for edges that
+     *  have been forgotten. */
+    void compact(final int v) {
+        outEdges[v].removeIf(w -> edgeIds.get(edgeKey(v, w)) == 0);
+    }
 
-    /** Return an arraylist that contains successors of V. */
-    private ArrayList<Integer> findallsuccessors(int v) {
-        ArrayList<Integer> allsuccessors = new ArrayList<>();
-        for (int[] edge : edges()) {
-            if (isDirected()) {
-                if (edge[0] == v) {
-                    allsuccessors.add(edge[1]);
-                }
-            } else {
-                if (edge[0] == v) {
-                    allsuccessors.add(edge[1]);
-                } else if (edge[1] == v) {
-                    allsuccessors.add(edge[0]);
+    /** Remove edge (U, V) from my edge table, if present, leaving the
+     *  adjacency lists unchanged.  Returns true iff it was present. */
+    boolean forget(int u, int v) {
+        int id = edgeIds.remove(edgeKey(u, v));
+        if (id == 0) {
+            return false;
+        }
+        freeEdgeIds.add(id);
+        edgeCount -= 1;
+        return true;
+    }
+
+    /** Returns the successor list of V, which must be one of my
+     *  vertices. */
+    IntList outEdges(int v) {
+        return outEdges[v];
+    }
+
+    /** Returns the key used in edgeIds for edge (U, V).  Undirected
+     *  edges map (U, V) and (V, U) to the same key. */
+    long edgeKey(int u, int v) {
+        if (!isDirected() && u > v) {
+            return ((long) v << Integer.SIZE) | u;
+        }
+        return ((long) u << Integer.SIZE) | v;
+    }
+
+    /** Returns an id for a new edge: the most recently freed id, if any,
+     *  and otherwise one more than the largest id yet assigned.  Ids thus
+     *  never exceed the largest number of edges I have ever had. */
+    private int newEdgeId() {
+        if (!freeEdgeIds.isEmpty()) {
+            return freeEdgeIds.pop();
+        }
+        lastEdgeId += 1;
+        return lastEdgeId;
+    }
+
+    /** An iteration over all my edges that reads the successor lists
+     *  directly and returns the same array from every call to next(). */
+    private class EdgeIteration extends Iteration<int[]> {
+
+        @Override
+        public boolean hasNext() {
+            while (true) {
+                if (_list != null && _k < _list.size()) {
+                    if (isDirected() || _u <= _list.get(_k)) {
+                        return true;
+                    }
+                    _k += 1;
+                } else if (vertexSet.nextSetBit(_u + 1) > 0) {
+                    _u = vertexSet.nextSetBit(_u + 1);
+                    _list = outEdges[_u];
+                    _k = 0;
+                } else {
+                    return false;
                 }
             }
         }
-        return allsuccessors;
+
+        @Override
+        public int[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            _edge[0] = _u;
+            _edge[1] = _list.get(_k);
+            _k += 1;
+            return _edge;
+        }
+
+        /** The vertex whose successors are being examined, or 0
+         *  initially. */
+        private int _u;
+        /** The successor list of _u, or null initially. */
+        private IntList _list;
+        /** Index in _list of the next candidate edge. */
+        private int _k;
+        /** The array returned by next(). */
+        private final int[] _edge = new int[2];
     }
 
-    /** All vertices. */
-    private ArrayList<Integer> allVertices;
+    /** The set of my vertices. */
+    private BitSet vertexSet;
+
+    /** The number of vertices. */
+    private int vertexCount;
+
+    /** The largest vertex number in vertexSet, or 0 if it is empty. */
+    private int largestVertex;
+
+    /** Successor lists, indexed by vertex number.  In an undirected graph
+     *  each edge (U, V) appears in the lists of both U and V (once, if
+     *  U == V).  Entries for missing vertices are null. */
+    private IntList[] outEdges = new IntList[1];
+
+    /** Maps edgeKey(U, V) to the id of each edge (U, V). */
+    private LongIntMap edgeIds = new LongIntMap();
+
+    /** The number of edges. */
+    private int edgeCount;
+
+    /** Ids of removed edges, available for reuse. */
+    private IntList freeEdgeIds = new IntList();
 
-    /** All edges. */
-    private ArrayList<ArrayList<Integer>> allEdges;
+    /** The largest edge id assigned so far. */
+    private int lastEdgeId;
 
-    /** A record. */
+    /** Numbers of removed vertices, available for reuse by add(), which
+     *  takes the smallest.  Entries that have since been reused are
+     *  stale and are discarded when they reach the front. */
     private PriorityQueue<Integer> record = new PriorityQueue<>();
 }
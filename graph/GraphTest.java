@@ -2,7 +2,17 @@ package graph;
 
 import org.junit.Test;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.*;
 
@@ -245,4 +255,1697 @@ public class GraphTest {
         uDGraph.add(3, 1);
         assertEquals(1, uDGraph.degree(3));
     }
+
+    @Test
+    public void successorsAfterRemoval() {
+        UndirectedGraph ug = new UndirectedGraph();
+        for (int i = 0; i < 5; i += 1) {
+            ug.add();
+        }
+        ug.add(1, 4);
+        ug.add(2, 1);
+        ug.add(1, 1);
+        ug.add(1, 5);
+        ug.add(3, 4);
+        ArrayList<Integer> succ = new ArrayList<>();
+        for (int v : ug.successors(1)) {
+            succ.add(v);
+        }
+        assertEquals(Arrays.asList(4, 2, 1, 5), succ);
+        ug.remove(4);
+        succ.clear();
+        for (int v : ug.successors(1)) {
+            succ.add(v);
+        }
+        assertEquals(Arrays.asList(2, 1, 5), succ);
+        assertEquals(3, ug.edgeSize());
+        assertEquals(0, ug.outDegree(3));
+        int n = 0;
+        for (int[] e : ug.edges()) {
+            assertTrue(ug.contains(e[0], e[1]));
+            n += 1;
+        }
+        assertEquals(3, n);
+    }
+
+    @Test
+    public void dgEdgeIds() {
+        DirectedGraph dg = new DirectedGraph();
+        dg.add();
+        dg.add();
+        int e12 = dg.add(1, 2);
+        int e21 = dg.add(2, 1);
+        assertTrue(e12 > 0 && e21 > 0 && e12 != e21);
+        assertEquals(e12, dg.add(1, 2));
+        assertEquals(e12, dg.edgeId(1, 2));
+        assertEquals(2, dg.edgeSize());
+        dg.remove(1, 2);
+        assertEquals(0, dg.edgeId(1, 2));
+        assertFalse(dg.contains(1, 2));
+        assertTrue(dg.contains(2, 1));
+        dg.remove(1);
+        assertEquals(0, dg.edgeSize());
+        assertEquals(0, dg.outDegree(2));
+    }
+
+    @Test
+    public void dgPredecessorsInEdgeOrder() {
+        DirectedGraph dg = new DirectedGraph();
+        for (int i = 0; i < 4; i += 1) {
+            dg.add();
+        }
+        dg.add(3, 2);
+        dg.add(1, 2);
+        dg.add(2, 2);
+        dg.add(4, 2);
+        dg.add(2, 4);
+        ArrayList<Integer> pred = new ArrayList<>();
+        for (int v : dg.predecessors(2)) {
+            pred.add(v);
+        }
+        assertEquals(Arrays.asList(3, 1, 2, 4), pred);
+        assertEquals(4, dg.inDegree(2));
+        dg.remove(1, 2);
+        dg.remove(4);
+        pred.clear();
+        for (int v : dg.predecessors(2)) {
+            pred.add(v);
+        }
+        assertEquals(Arrays.asList(3, 2), pred);
+        assertEquals(2, dg.inDegree(2));
+        assertEquals(1, dg.outDegree(2));
+        assertEquals(0, dg.inDegree(4));
+    }
+
+    /** Returns the items of IT as a list. */
+    private static ArrayList<Integer> toList(Iteration<Integer> it) {
+        ArrayList<Integer> result = new ArrayList<>();
+        for (int v : it) {
+            result.add(v);
+        }
+        return result;
+    }
+
+    @Test
+    public void frozenCopiesStructure() {
+        DirectedGraph dg = new DirectedGraph();
+        for (int i = 0; i < 5; i += 1) {
+            dg.add();
+        }
+        dg.add(1, 3);
+        dg.add(1, 2);
+        dg.add(3, 3);
+        dg.add(5, 3);
+        dg.add(3, 1);
+        dg.remove(4);
+        FrozenGraph fg = new FrozenGraph(dg);
+        assertEquals(4, fg.vertexSize());
+        assertEquals(5, fg.maxVertex());
+        assertEquals(5, fg.edgeSize());
+        assertFalse(fg.contains(4));
+        assertEquals(Arrays.asList(1, 2, 3, 5), toList(fg.vertices()));
+        assertEquals(Arrays.asList(3, 2), toList(fg.successors(1)));
+        assertEquals(Arrays.asList(1, 3, 5), toList(fg.predecessors(3)));
+        assertEquals(3, fg.inDegree(3));
+        assertTrue(fg.contains(5, 3));
+        assertFalse(fg.contains(3, 5));
+        assertEquals(0, fg.edgeId(3, 5));
+        int n = 0;
+        for (int[] e : fg.edges()) {
+            assertTrue(dg.contains(e[0], e[1]));
+            assertTrue(fg.edgeId(e[0], e[1]) > 0);
+            n += 1;
+        }
+        assertEquals(5, n);
+        FrozenGraph noPreds = new FrozenGraph(dg, false);
+        assertEquals(Arrays.asList(1, 3, 5), toList(noPreds.predecessors(3)));
+    }
+
+    @Test
+    public void frozenUndirected() {
+        UndirectedGraph ug = new UndirectedGraph();
+        for (int i = 0; i < 3; i += 1) {
+            ug.add();
+        }
+        ug.add(1, 2);
+        ug.add(2, 2);
+        ug.add(3, 2);
+        FrozenGraph fg = new FrozenGraph(ug);
+        assertEquals(3, fg.edgeSize());
+        assertEquals(3, fg.degree(2));
+        assertTrue(fg.contains(2, 3));
+        assertEquals(fg.edgeId(2, 3), fg.edgeId(3, 2));
+        assertEquals(Arrays.asList(1, 2, 3), toList(fg.predecessors(2)));
+        int n = 0;
+        for (int[] e : fg.edges()) {
+            n += 1;
+        }
+        assertEquals(3, n);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void frozenRejectsChanges() {
+        UndirectedGraph ug = new UndirectedGraph();
+        ug.add();
+        new FrozenGraph(ug).add();
+    }
+
+    @Test
+    public void primitiveIterations() {
+        DirectedGraph dg = new DirectedGraph();
+        for (int i = 0; i < 4; i += 1) {
+            dg.add();
+        }
+        dg.add(2, 4);
+        dg.add(2, 1);
+        dg.add(3, 1);
+        Graph g = new GraphFilter(dg);
+        IntIteration it = g.successorsInt(2);
+        assertTrue(it.hasNext());
+        assertEquals(4, it.nextInt());
+        assertEquals(1, it.nextInt());
+        assertFalse(it.hasNext());
+        final ArrayList<Integer> seen = new ArrayList<>();
+        g.forEachSuccessor(2, seen::add);
+        assertEquals(Arrays.asList(4, 1), seen);
+        assertEquals(Arrays.asList(2, 3), toList(g.predecessorsInt(1)));
+        assertEquals(Arrays.asList(1, 2, 3, 4), toList(g.verticesInt()));
+        assertFalse(g.successorsInt(7).hasNext());
+    }
+
+    @Test
+    public void iterationFailsFast() {
+        DirectedGraph g = new DirectedGraph();
+        for (int i = 0; i < 4; i += 1) {
+            g.add();
+        }
+        g.add(1, 2);
+        g.add(1, 3);
+        g.add(1, 4);
+        try {
+            for (int w : g.successors(1)) {
+                g.remove(1, w);
+            }
+            fail("expected ConcurrentModificationException");
+        } catch (java.util.ConcurrentModificationException excp) {
+            assertEquals(2, g.outDegree(1));
+        }
+        g.add(2, 3);
+        g.add(4, 3);
+        try {
+            for (int w : g.predecessors(3)) {
+                g.remove(w, 3);
+            }
+            fail("expected ConcurrentModificationException");
+        } catch (java.util.ConcurrentModificationException excp) {
+            assertEquals(2, g.inDegree(3));
+        }
+        for (int w : toList(g.successorsInt(1))) {
+            g.remove(1, w);
+        }
+        assertEquals(0, g.outDegree(1));
+    }
+
+    @Test
+    public void filterOverridingSuccessors() {
+        DirectedGraph dg = new DirectedGraph();
+        for (int i = 0; i < 4; i += 1) {
+            dg.add();
+        }
+        dg.add(1, 2);
+        dg.add(1, 3);
+        dg.add(3, 4);
+        Graph g = new GraphFilter(dg) {
+            @Override
+            public Iteration<Integer> successors(int v) {
+                ArrayList<Integer> result = new ArrayList<>();
+                for (int w : super.successors(v)) {
+                    if (w != 3) {
+                        result.add(w);
+                    }
+                }
+                return Iteration.iteration(result.iterator());
+            }
+        };
+        assertEquals(Arrays.asList(2), toList(g.successorsInt(1)));
+        final List<Integer> visited = new ArrayList<>();
+        new BreadthFirstTraversal(g) {
+            @Override
+            protected boolean visit(int v) {
+                visited.add(v);
+                return true;
+            }
+        }.traverse(1);
+        assertEquals(Arrays.asList(1, 2), visited);
+    }
+
+    @Test
+    public void edgesCursor() {
+        UndirectedGraph ug = new UndirectedGraph();
+        for (int i = 0; i < 4; i += 1) {
+            ug.add();
+        }
+        ug.add(3, 1);
+        ug.add(2, 2);
+        ug.add(4, 2);
+        ug.remove(1);
+        assertEquals(1, ug.add());
+        ug.add(1, 4);
+        ArrayList<String> found = new ArrayList<>();
+        int[] first = null;
+        for (int[] e : ug.edges()) {
+            if (first == null) {
+                first = e;
+            }
+            assertSame(first, e);
+            found.add(e[0] + "-" + e[1]);
+        }
+        assertEquals(Arrays.asList("1-4", "2-2", "2-4"), found);
+        assertFalse(new DirectedGraph().edges().hasNext());
+    }
+
+    @Test
+    public void builderDedupes() {
+        Graph dg = new GraphBuilder(true).vertices(5)
+            .addEdges(new int[] { 3, 1, 3, 2 }, new int[] { 1, 2, 1, 1 })
+            .addEdge(1, 3).build();
+        assertTrue(dg instanceof DirectedGraph);
+        assertEquals(5, dg.vertexSize());
+        assertEquals(4, dg.edgeSize());
+        assertEquals(Arrays.asList(2, 3), toList(dg.successors(1)));
+        assertEquals(Arrays.asList(2, 3), toList(dg.predecessors(1)));
+        assertEquals(0, dg.outDegree(5));
+        Graph ug = new GraphBuilder(false)
+            .addEdge(4, 2).addEdge(2, 4).addEdge(2, 2).addEdge(1, 2).build();
+        assertTrue(ug instanceof UndirectedGraph);
+        assertEquals(4, ug.maxVertex());
+        assertEquals(3, ug.edgeSize());
+        assertEquals(Arrays.asList(1, 2, 4), toList(ug.successors(2)));
+        assertTrue(ug.contains(4, 2));
+        assertEquals(5, ug.add());
+        ug.add(5, 2);
+        assertEquals(4, ug.degree(2));
+    }
+
+    @Test
+    public void parallelBuilderMatchesSequential() {
+        Random r = new Random(61);
+        for (boolean directed : new boolean[] { true, false }) {
+            GraphBuilder seq = new GraphBuilder(directed).vertices(300);
+            GraphBuilder par = new GraphBuilder(directed).vertices(300)
+                .parallel(new java.util.concurrent.ForkJoinPool(4));
+            for (int i = 0; i < 20000; i += 1) {
+                int u = 1 + r.nextInt(250), v = 1 + r.nextInt(250);
+                seq.addEdge(u, v);
+                par.addEdge(u, v);
+            }
+            Graph g1 = seq.build(), g2 = par.build();
+            assertEquals(g1.edgeSize(), g2.edgeSize());
+            assertEquals(300, g2.vertexSize());
+            for (int v = 1; v <= 300; v += 1) {
+                assertEquals(toList(g1.successors(v)),
+                             toList(g2.successors(v)));
+                assertEquals(toList(g1.predecessors(v)),
+                             toList(g2.predecessors(v)));
+            }
+            g2.remove(7);
+            assertEquals(0, g2.inDegree(7));
+            for (int[] e : g2.edges()) {
+                assertTrue(g2.edgeId(e[0], e[1]) != 0);
+            }
+        }
+    }
+
+    @Test
+    public void concurrentGraphBasics() {
+        ConcurrentGraph g = new ConcurrentGraph(true);
+        for (int i = 0; i < 4; i += 1) {
+            g.add();
+        }
+        int e = g.add(1, 2);
+        assertEquals(e, g.add(1, 2));
+        g.add(3, 2);
+        g.add(2, 2);
+        assertEquals(3, g.edgeSize());
+        assertEquals(Arrays.asList(1, 3, 2), toList(g.predecessors(2)));
+        g.remove(3);
+        assertEquals(Arrays.asList(1, 2), toList(g.predecessors(2)));
+        assertEquals(3, g.add());
+        g.remove(4);
+        assertEquals(3, g.maxVertex());
+        assertEquals(4, g.add());
+        assertFalse(g.contains(3, 2));
+        assertEquals(2, g.edgeSize());
+    }
+
+    /** Run THREADS threads on G, whose vertices are numbered at most N.
+     *  The first CHURNERS of them each perform OPS / WRITEPERIOD vertex
+     *  insertions or removals.  The others each perform OPS random reads
+     *  or (one time in WRITEPERIOD) edge insertions and removals,
+     *  ignoring attempts to add edges to missing vertices. */
+    private static void hammer(final ConcurrentGraph g, final int n,
+                               int threads, final int churners,
+                               final int ops, final int writePeriod)
+        throws Exception {
+        Thread[] workers = new Thread[threads];
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        for (int t = 0; t < threads; t += 1) {
+            final Random r = new Random(t);
+            final boolean churner = t < churners;
+            workers[t] = new Thread(() -> {
+                try {
+                    for (int i = 0; i < ops; i += 1) {
+                        int u = 1 + r.nextInt(n), v = 1 + r.nextInt(n);
+                        if (i % writePeriod != 0) {
+                            if (churner) {
+                                continue;
+                            }
+                            for (IntIteration it = g.successorsInt(u);
+                                 it.hasNext(); ) {
+                                assertTrue(it.nextInt() > 0);
+                            }
+                            g.contains(u, v);
+                        } else if (churner) {
+                            if (g.vertexSize() < n && r.nextBoolean()) {
+                                g.add();
+                            } else {
+                                g.remove(u);
+                            }
+                        } else if (r.nextBoolean()) {
+                            try {
+                                g.add(u, v);
+                            } catch (IllegalArgumentException excp) {
+                                /* U or V is absent or being removed. */
+                            }
+                        } else {
+                            g.remove(u, v);
+                        }
+                    }
+                } catch (Throwable excp) {
+                    error.set(excp);
+                }
+            });
+        }
+        for (Thread w : workers) {
+            w.start();
+        }
+        for (Thread w : workers) {
+            w.join();
+        }
+        if (error.get() != null) {
+            throw new AssertionError(error.get());
+        }
+    }
+
+    /** Check that the adjacency lists, edge ids, and counts of G agree
+     *  with each other. */
+    private static void checkConsistent(ConcurrentGraph g) {
+        int edges = 0, vertices = 0;
+        HashSet<Integer> ids = new HashSet<>();
+        for (int u = 1; u <= g.maxVertex(); u += 1) {
+            if (!g.contains(u)) {
+                assertEquals(0, g.outDegree(u));
+                continue;
+            }
+            vertices += 1;
+            for (int v : g.successors(u)) {
+                assertTrue(g.contains(v));
+                assertTrue(g.contains(u, v));
+                assertTrue(toList(g.predecessors(v)).contains(u));
+                if (g.isDirected() || u <= v) {
+                    assertTrue(ids.add(g.edgeId(u, v)));
+                    edges += 1;
+                }
+            }
+            for (int v : g.predecessors(u)) {
+                assertTrue(g.contains(v, u));
+            }
+        }
+        assertEquals(g.vertexSize(), vertices);
+        assertEquals(g.edgeSize(), edges);
+    }
+
+    @Test
+    public void concurrentGraphStress() throws Exception {
+        final int n = 2000, ops = 200000;
+        ConcurrentGraph g = new ConcurrentGraph(true);
+        for (int i = 0; i < n; i += 1) {
+            g.add();
+        }
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        hammer(g, n, 1, 0, ops, 10);
+        hammer(g, n, threads, 0, ops, 10);
+        checkConsistent(g);
+    }
+
+    @Test
+    public void concurrentGraphVertexChurn() throws Exception {
+        final int n = 500, ops = 100000;
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        for (boolean directed : new boolean[] { true, false }) {
+            ConcurrentGraph g = new ConcurrentGraph(directed);
+            for (int i = 0; i < n; i += 1) {
+                g.add();
+            }
+            hammer(g, n, threads, 2, ops, 4);
+            checkConsistent(g);
+            for (int v = 1; v <= n; v += 1) {
+                g.remove(v);
+            }
+            assertEquals(0, g.vertexSize());
+            assertEquals(0, g.edgeSize());
+            assertEquals(0, g.maxVertex());
+        }
+    }
+
+    @Test
+    public void versionedSnapshotsAreStable() {
+        VersionedGraph vg = new VersionedGraph(true);
+        for (int i = 0; i < 300; i += 1) {
+            vg.add();
+        }
+        vg.add(1, 2);
+        vg.add(2, 299);
+        Graph before = vg.snapshot();
+        long version = vg.version();
+        vg.remove(2);
+        vg.add(1, 3);
+        assertEquals(version + 2, vg.version());
+        assertTrue(before.contains(2, 299));
+        assertEquals(Arrays.asList(2), toList(before.successors(1)));
+        assertEquals(Arrays.asList(2), toList(before.predecessors(299)));
+        assertEquals(2, before.edgeSize());
+        assertFalse(vg.contains(2));
+        assertEquals(Arrays.asList(3), toList(vg.successors(1)));
+        assertEquals(0, vg.inDegree(299));
+        vg.update(g -> {
+            assertEquals(2, g.add());
+            g.add(2, 2);
+            g.add(3, 2);
+        });
+        assertEquals(version + 3, vg.version());
+        assertEquals(Arrays.asList(2, 3), toList(vg.predecessors(2)));
+        assertEquals(vg.edgeId(2, 2), vg.snapshot().edgeId(2, 2));
+        assertFalse(before.contains(3, 2));
+    }
+
+    @Test
+    public void versionedFailedUpdateCommitsNothing() {
+        VersionedGraph vg = new VersionedGraph(false);
+        for (int i = 0; i < 4; i += 1) {
+            vg.add();
+        }
+        vg.add(1, 2);
+        vg.remove(3);
+        Graph before = vg.snapshot();
+        long version = vg.version();
+        try {
+            vg.update(g -> {
+                g.remove(1, 2);
+                assertEquals(3, g.add());
+                g.add(3, 4);
+                throw new IllegalStateException("closure failed");
+            });
+            fail("update did not rethrow");
+        } catch (IllegalStateException excp) {
+            assertEquals("closure failed", excp.getMessage());
+        }
+        assertSame(before, vg.snapshot());
+        assertEquals(version, vg.version());
+        assertTrue(vg.contains(1, 2));
+        assertFalse(vg.contains(3));
+        assertEquals(1, vg.edgeSize());
+        assertEquals(3, vg.add());
+        assertEquals(2, vg.add(3, 4));
+        assertEquals(1, vg.edgeId(1, 2));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void versionedSnapshotsAreReadOnly() {
+        VersionedGraph vg = new VersionedGraph(false);
+        vg.add();
+        vg.snapshot().add(1, 1);
+    }
+
+    @Test
+    public void versionedReadsDuringWrites() throws Exception {
+        final VersionedGraph vg = new VersionedGraph(false);
+        final int n = 1000;
+        for (int i = 0; i < n; i += 1) {
+            vg.add();
+        }
+        Thread writer = new Thread(() -> {
+            Random r = new Random(3);
+            for (int i = 0; i < 20000; i += 1) {
+                int u = 1 + r.nextInt(n), v = 1 + r.nextInt(n);
+                if (r.nextInt(3) == 0) {
+                    vg.remove(u, v);
+                } else {
+                    vg.add(u, v);
+                }
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            Graph snap = vg.snapshot();
+            int ends = 0, loops = 0;
+            for (int u = 1; u <= n; u += 1) {
+                ends += snap.outDegree(u);
+                if (snap.contains(u, u)) {
+                    loops += 1;
+                }
+            }
+            assertEquals(2 * snap.edgeSize(), ends + loops);
+        }
+        writer.join();
+    }
+
+    @Test
+    public void denseEdgeIds() {
+        Graph g = new GraphBuilder(false).vertices(60000).build();
+        int e1 = g.add(59999, 60000), e2 = g.add(1, 60000);
+        assertEquals(1, e1);
+        assertEquals(2, e2);
+        assertEquals(e1, g.edgeId(60000, 59999));
+        g.remove(59999, 60000);
+        assertEquals(e1, g.add(5, 7));
+        g.remove(60000);
+        assertEquals(e2, g.add(8, 9));
+        assertEquals(3, g.add(8, 10));
+    }
+
+    @Test
+    public void recycledEdgeIdsLoseLabels() {
+        LabeledGraph<String, String> lg =
+            new LabeledGraph<>(new DirectedGraph());
+        lg.add("a");
+        lg.add("b");
+        lg.add("c");
+        lg.add(1, 2, "ab");
+        lg.add(3, 1, "ca");
+        lg.remove(1);
+        lg.add("a2");
+        lg.add(2, 3);
+        lg.add(3, 2);
+        assertNull(lg.getLabel(2, 3));
+        assertNull(lg.getLabel(3, 2));
+        assertEquals("a2", lg.getLabel(1));
+    }
+
+    @Test
+    public void doubleEdgeColumns() {
+        LabeledGraph<String, String> lg =
+            new LabeledGraph<>(new UndirectedGraph());
+        lg.add("a");
+        lg.add("b");
+        lg.add("c");
+        DoubleEdgeColumn w = lg.doubleColumn(-1.0);
+        lg.add(1, 2, "ab");
+        for (int v = 1; v <= 40; v += 1) {
+            lg.add();
+            lg.add(3, v);
+            w.set(v, 3, v / 2.0);
+        }
+        w.set(2, 1, 2.5);
+        assertEquals(2.5, w.get(1, 2), 0.0);
+        assertEquals(20.0, w.get(3, 40), 0.0);
+        assertEquals(-1.0, w.get(1, 40), 0.0);
+        lg.remove(1, 2);
+        assertEquals(-1.0, w.get(1, 2), 0.0);
+        lg.add(2, 1);
+        assertEquals(-1.0, w.get(1, 2), 0.0);
+        lg.remove(3);
+        assertEquals(-1.0, w.getDefault(), 0.0);
+        assertEquals(-1.0, w.get(3, 40), 0.0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void doubleEdgeColumnNeedsEdge() {
+        LabeledGraph<String, String> lg =
+            new LabeledGraph<>(new DirectedGraph());
+        lg.add("a");
+        lg.doubleColumn(0.0).set(1, 1, 3.0);
+    }
+
+    @Test
+    public void indexedSuccessors() {
+        LabeledGraph<String, Character> dg =
+            new LabeledGraph<>(new DirectedGraph());
+        dg.add("q1");
+        dg.add("q2");
+        dg.add("q3");
+        dg.add(1, 2, 'a');
+        dg.indexSuccessors();
+        dg.add(2, 3, 'b');
+        dg.add(3, 3, 'a');
+        assertEquals(2, dg.getSuccessor(1, 'a'));
+        assertEquals(0, dg.getSuccessor(2, 'a'));
+        assertEquals(0, dg.getSuccessor(3, 'b'));
+        assertEquals(3, dg.getSuccessor(3, 'a'));
+        dg.setLabel(1, 2, 'b');
+        assertEquals(0, dg.getSuccessor(1, 'a'));
+        assertEquals(2, dg.getSuccessor(1, 'b'));
+        dg.add(1, 3, 'b');
+        dg.remove(1, 2);
+        assertEquals(3, dg.getSuccessor(1, 'b'));
+        dg.remove(3);
+        assertEquals(0, dg.getSuccessor(1, 'b'));
+        assertEquals(0, dg.getSuccessor(2, 'b'));
+        assertEquals(0, dg.getSuccessor(3, 'a'));
+
+        LabeledGraph<String, Character> ug =
+            new LabeledGraph<>(new UndirectedGraph());
+        ug.add("x");
+        ug.add("y");
+        ug.indexSuccessors();
+        ug.add(1, 2, 'c');
+        assertEquals(2, ug.getSuccessor(1, 'c'));
+        assertEquals(1, ug.getSuccessor(2, 'c'));
+        ug.add(2, 1, 'd');
+        assertEquals(0, ug.getSuccessor(1, 'c'));
+        assertEquals(1, ug.getSuccessor(2, 'd'));
+    }
+
+    @Test
+    public void indexedVertices() {
+        LabeledGraph<String, String> g =
+            new LabeledGraph<>(new DirectedGraph());
+        g.add("Alameda");
+        g.add("Berkeley");
+        g.indexVertices(lab -> lab.substring(0, 1));
+        assertEquals(1, g.getVertex("A"));
+        assertEquals(2, g.getVertex("B"));
+        assertEquals(0, g.getVertex("C"));
+        g.add("Concord");
+        assertEquals(3, g.getVertex("C"));
+        g.setLabel(2, "Danville");
+        assertEquals(0, g.getVertex("B"));
+        assertEquals(2, g.getVertex("D"));
+        g.remove(1);
+        assertEquals(0, g.getVertex("A"));
+        assertEquals(1, g.add("Emeryville"));
+        assertEquals(1, g.getVertex("E"));
+        g.add("Dublin");
+        g.remove(2);
+        assertEquals(4, g.getVertex("D"));
+    }
+
+    @Test
+    public void subgraphViews() {
+        DirectedGraph g = new DirectedGraph();
+        for (int i = 0; i < 5; i += 1) {
+            g.add();
+        }
+        g.add(1, 2);
+        g.add(2, 3);
+        g.add(1, 4);
+        g.add(4, 5);
+        g.add(3, 5);
+        BitSet mask = new BitSet();
+        mask.set(1, 6);
+        mask.clear(4);
+        SubgraphView view = new SubgraphView(g, mask, (u, v) -> u != 3);
+        assertEquals(4, view.vertexSize());
+        assertEquals(5, view.maxVertex());
+        assertEquals(2, view.edgeSize());
+        assertEquals(Arrays.asList(1, 2, 3, 5), toList(view.verticesInt()));
+        assertEquals(Arrays.asList(2), toList(view.successorsInt(1)));
+        assertEquals(0, view.inDegree(5));
+        assertFalse(view.contains(3, 5));
+        assertEquals(0, view.edgeId(1, 4));
+        mask.set(4);
+        assertEquals(4, view.edgeSize());
+        final ArrayList<Integer> order = new ArrayList<>();
+        new BreadthFirstTraversal(view) {
+            @Override
+            protected boolean visit(int v) {
+                order.add(v);
+                return true;
+            }
+        }.traverse(1);
+        assertEquals(Arrays.asList(1, 2, 4, 3, 5), order);
+
+        UndirectedGraph ug = new UndirectedGraph();
+        ug.add();
+        ug.add();
+        ug.add(2, 1);
+        SubgraphView uview =
+            new SubgraphView(ug, null, (u, v) -> u == 1 && v == 2);
+        assertTrue(uview.contains(2, 1));
+        assertEquals(Arrays.asList(1), toList(uview.successorsInt(2)));
+    }
+
+    @Test
+    public void reversedView() {
+        DirectedGraph g = new DirectedGraph();
+        for (int i = 0; i < 3; i += 1) {
+            g.add();
+        }
+        int e = g.add(1, 2);
+        g.add(1, 3);
+        ReversedView r = new ReversedView(g);
+        assertTrue(r.contains(2, 1));
+        assertFalse(r.contains(1, 2));
+        assertEquals(2, r.inDegree(1));
+        assertEquals(0, r.outDegree(1));
+        assertEquals(Arrays.asList(1), toList(r.successorsInt(3)));
+        assertEquals(e, r.edgeId(2, 1));
+        int n;
+        n = 0;
+        for (int[] edge : r.edges()) {
+            assertTrue(g.contains(edge[1], edge[0]));
+            n += 1;
+        }
+        assertEquals(2, n);
+        g.add(3, 2);
+        assertEquals(Arrays.asList(1, 3), toList(r.successorsInt(2)));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void viewsAreReadOnly() {
+        DirectedGraph g = new DirectedGraph();
+        g.add();
+        new SubgraphView(g, null, null).add(1, 1);
+    }
+
+    @Test
+    public void compressedCopiesStructure() {
+        for (boolean directed : new boolean[] { true, false }) {
+            GraphObj g =
+                directed ? new DirectedGraph() : new UndirectedGraph();
+            for (int i = 0; i < 300; i += 1) {
+                g.add();
+            }
+            for (int v = 1; v <= 300; v += 1) {
+                g.add(v, v);
+                g.add(v, 1 + (v * 7) % 300);
+                g.add(v, 1 + (v * 131) % 300);
+            }
+            g.remove(5);
+            g.remove(300);
+            CompressedGraph cg = new CompressedGraph(g);
+            assertEquals(g.vertexSize(), cg.vertexSize());
+            assertEquals(g.maxVertex(), cg.maxVertex());
+            assertEquals(g.edgeSize(), cg.edgeSize());
+            assertEquals(toList(g.verticesInt()), toList(cg.verticesInt()));
+            ArrayList<Integer> ids = new ArrayList<>();
+            for (int v = 0; v <= 301; v += 1) {
+                assertEquals(g.contains(v), cg.contains(v));
+                List<Integer> succ = toList(g.successorsInt(v));
+                Collections.sort(succ);
+                assertEquals(succ, toList(cg.successorsInt(v)));
+                List<Integer> pred = toList(g.predecessorsInt(v));
+                Collections.sort(pred);
+                assertEquals(pred, toList(cg.predecessorsInt(v)));
+                assertEquals(g.inDegree(v), cg.inDegree(v));
+                for (int w : succ) {
+                    assertTrue(cg.contains(v, w));
+                    if (!directed) {
+                        assertEquals(cg.edgeId(v, w), cg.edgeId(w, v));
+                    }
+                    if (directed || v <= w) {
+                        ids.add(cg.edgeId(v, w));
+                    }
+                }
+            }
+            assertFalse(cg.contains(5, 6));
+            assertEquals(ids.size(), new HashSet<>(ids).size());
+            int n;
+            n = 0;
+            for (int[] e : cg.edges()) {
+                assertTrue(g.contains(e[0], e[1]));
+                n += 1;
+            }
+            assertEquals(g.edgeSize(), n);
+        }
+    }
+
+    @Test
+    public void compressedGraphSize() {
+        final int n = 20000;
+        GraphBuilder builder = new GraphBuilder(true).vertices(n);
+        for (int v = 1; v <= n; v += 1) {
+            for (int d = 1; d <= 8; d += 1) {
+                int w = v + d * d - 20;
+                if (w >= 1 && w <= n) {
+                    builder.addEdge(v, w);
+                }
+            }
+        }
+        Graph g = builder.build();
+        FrozenGraph fg = new FrozenGraph(g);
+        CompressedGraph cg = new CompressedGraph(g);
+        assertEquals(g.edgeSize(), cg.edgeSize());
+        assertTrue(cg.sizeInBytes() < fg.sizeInBytes() / 2);
+        long[] sums = new long[3];
+        Graph[] graphs = { g, fg, cg };
+        for (int i = 0; i < graphs.length; i += 1) {
+            for (int v = 1; v <= n; v += 1) {
+                for (IntIteration it = graphs[i].successorsInt(v);
+                     it.hasNext(); ) {
+                    sums[i] += it.nextInt();
+                }
+            }
+        }
+        assertEquals(sums[0], sums[1]);
+        assertEquals(sums[0], sums[2]);
+    }
+
+    @Test
+    public void mappedGraphRoundTrip() throws IOException {
+        Path file = Files.createTempFile("graph", ".bin");
+        try {
+            DirectedGraph dg = new DirectedGraph();
+            for (int i = 0; i < 6; i += 1) {
+                dg.add();
+            }
+            dg.add(1, 3);
+            dg.add(1, 2);
+            dg.add(2, 2);
+            dg.add(6, 1);
+            dg.remove(4);
+            MappedGraph.write(dg, file);
+            MappedGraph mg = MappedGraph.open(file);
+            assertTrue(mg.isDirected());
+            assertEquals(5, mg.vertexSize());
+            assertEquals(6, mg.maxVertex());
+            assertEquals(4, mg.edgeSize());
+            assertFalse(mg.contains(4));
+            assertEquals(toList(dg.verticesInt()), toList(mg.verticesInt()));
+            for (int v = 1; v <= 6; v += 1) {
+                assertEquals(toList(dg.successorsInt(v)),
+                             toList(mg.successorsInt(v)));
+                assertEquals(toList(dg.predecessorsInt(v)),
+                             toList(mg.predecessorsInt(v)));
+            }
+            assertTrue(mg.contains(6, 1));
+            assertFalse(mg.contains(1, 6));
+            assertNotEquals(mg.edgeId(1, 3), mg.edgeId(1, 2));
+            LabeledGraph<String, String> lg = new LabeledGraph<>(mg);
+            lg.setLabel(1, 2, "road");
+            assertEquals("road", lg.getLabel(1, 2));
+
+            UndirectedGraph ug = new UndirectedGraph();
+            ug.add();
+            ug.add();
+            ug.add(2, 1);
+            MappedGraph.write(ug, file);
+            mg = MappedGraph.open(file);
+            assertFalse(mg.isDirected());
+            assertEquals(1, mg.edgeSize());
+            assertEquals(mg.edgeId(1, 2), mg.edgeId(2, 1));
+            assertEquals(Arrays.asList(1), toList(mg.predecessorsInt(2)));
+            int n;
+            n = 0;
+            for (int[] e : mg.edges()) {
+                assertArrayEquals(new int[] { 1, 2 }, e);
+                n += 1;
+            }
+            assertEquals(1, n);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void mappedGraphRejectsOtherFiles() throws IOException {
+        Path file = Files.createTempFile("graph", ".txt");
+        try {
+            Files.write(file, new byte[100]);
+            MappedGraph.open(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void graphIORoundTrip() throws IOException {
+        Path file = Files.createTempFile("graph", ".bin");
+        try {
+            DirectedGraph dg = new DirectedGraph();
+            for (int i = 0; i < 6; i += 1) {
+                dg.add();
+            }
+            dg.add(3, 1);
+            dg.add(1, 3);
+            dg.add(6, 3);
+            dg.add(2, 2);
+            dg.remove(4);
+            dg.remove(5);
+            GraphIO.save(dg, file);
+            Graph g = GraphIO.load(file);
+            assertTrue(g instanceof DirectedGraph);
+            assertEquals(4, g.vertexSize());
+            assertEquals(6, g.maxVertex());
+            assertEquals(4, g.edgeSize());
+            assertEquals(toList(dg.verticesInt()), toList(g.verticesInt()));
+            for (int v = 1; v <= 6; v += 1) {
+                assertEquals(toList(dg.successorsInt(v)),
+                             toList(g.successorsInt(v)));
+                assertEquals(toList(dg.predecessorsInt(v)),
+                             toList(g.predecessorsInt(v)));
+            }
+            assertEquals(4, g.add());
+
+            LabeledGraph<String, String> lg =
+                new LabeledGraph<>(new UndirectedGraph());
+            lg.add("a");
+            lg.add((String) null);
+            lg.add("c");
+            lg.add(1, 2, "ab");
+            lg.add(3, 1);
+            lg.add(3, 3, "cc");
+            GraphIO.save(lg, file, GraphIO.STRINGS, GraphIO.STRINGS);
+            LabeledGraph<String, String> lh =
+                GraphIO.load(file, GraphIO.STRINGS, GraphIO.STRINGS);
+            assertFalse(lh.isDirected());
+            assertEquals(3, lh.edgeSize());
+            assertEquals("a", lh.getLabel(1));
+            assertNull(lh.getLabel(2));
+            assertEquals("ab", lh.getLabel(2, 1));
+            assertNull(lh.getLabel(1, 3));
+            assertEquals("cc", lh.getLabel(3, 3));
+            assertEquals(3, GraphIO.load(file).edgeSize());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void graphIORejectsOtherFiles() throws IOException {
+        Path file = Files.createTempFile("graph", ".txt");
+        try {
+            Files.write(file, new byte[100]);
+            GraphIO.load(file);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void graphIOSharesMappedFormat() throws IOException {
+        Path file = Files.createTempFile("graph", ".bin");
+        try {
+            DirectedGraph dg = new DirectedGraph();
+            for (int i = 0; i < 5; i += 1) {
+                dg.add();
+            }
+            dg.add(1, 2);
+            dg.add(5, 2);
+            dg.add(2, 5);
+            dg.remove(3);
+            GraphIO.save(dg, file);
+            MappedGraph mg = MappedGraph.open(file);
+            assertEquals(4, mg.vertexSize());
+            assertEquals(Arrays.asList(1, 5), toList(mg.predecessorsInt(2)));
+            MappedGraph.write(dg, file, false);
+            Graph g = GraphIO.load(file);
+            assertEquals(3, g.edgeSize());
+            assertFalse(g.contains(3));
+            for (int v = 1; v <= 5; v += 1) {
+                assertEquals(toList(dg.successorsInt(v)),
+                             toList(g.successorsInt(v)));
+                assertEquals(toList(dg.predecessorsInt(v)),
+                             toList(g.predecessorsInt(v)));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void graphIORejectsDamagedFiles() throws IOException {
+        Path file = Files.createTempFile("graph", ".bin");
+        try {
+            LabeledGraph<String, String> lg =
+                new LabeledGraph<>(new DirectedGraph());
+            for (int i = 0; i < 100; i += 1) {
+                lg.add("v" + i);
+            }
+            for (int v = 1; v < 100; v += 1) {
+                lg.add(v, v + 1, "e" + v);
+            }
+            GraphIO.save(lg, file, GraphIO.STRINGS, GraphIO.STRINGS);
+            byte[] whole = Files.readAllBytes(file);
+            for (int len = 64; len < whole.length; len += 37) {
+                Files.write(file, Arrays.copyOf(whole, len));
+                try {
+                    GraphIO.load(file, GraphIO.STRINGS, GraphIO.STRINGS);
+                    fail("loaded a file truncated to " + len + " bytes");
+                } catch (IOException excp) {
+                    assertTrue(excp.getMessage().contains("graph file"));
+                }
+            }
+            byte[] bad = whole.clone();
+            bad[12] = 0x7f;
+            Files.write(file, bad);
+            try {
+                GraphIO.load(file);
+                fail("loaded a file with a bad maxVertex");
+            } catch (IOException excp) {
+                assertTrue(excp.getMessage().contains("graph file"));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void mappedGraphRejectsDamagedFiles() throws IOException {
+        Path file = Files.createTempFile("graph", ".bin");
+        try {
+            DirectedGraph dg = new DirectedGraph();
+            for (int i = 0; i < 100; i += 1) {
+                dg.add();
+            }
+            for (int v = 1; v < 100; v += 1) {
+                dg.add(v, v + 1);
+            }
+            MappedGraph.write(dg, file);
+            byte[] whole = Files.readAllBytes(file);
+            for (int len = 0; len < whole.length; len += 37) {
+                Files.write(file, Arrays.copyOf(whole, len));
+                try {
+                    MappedGraph.open(file);
+                    fail("opened a file truncated to " + len + " bytes");
+                } catch (IOException excp) {
+                    assertTrue(excp.getMessage().contains("graph file"));
+                }
+            }
+            /* Bytes of maxVertex, of the number of entries, and of the
+             * last successor list start (after the 64-byte header, two
+             * bitmap words, and 101 other starts), with damaged values. */
+            int[][] damage = {
+                { 12, 0x7f }, { 12, 0x80 }, { 24, 0x80 }, { 27, 1 },
+                { 64 + 8 * 2 + 8 * 101 + 7, 1 }
+            };
+            for (int[] d : damage) {
+                byte[] bad = whole.clone();
+                bad[d[0]] = (byte) d[1];
+                Files.write(file, bad);
+                try {
+                    MappedGraph.open(file);
+                    fail("opened a file with byte " + d[0] + " damaged");
+                } catch (IOException excp) {
+                    assertTrue(excp.getMessage().contains("graph file")
+                               || excp.getMessage().contains("too many"));
+                }
+            }
+            Files.write(file, whole);
+            assertEquals(99, MappedGraph.open(file).edgeSize());
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void vertexBookkeeping() {
+        DirectedGraph g = new DirectedGraph();
+        for (int i = 0; i < 6; i += 1) {
+            g.add();
+        }
+        g.add(6, 1);
+        g.remove(5);
+        g.remove(6);
+        assertEquals(4, g.maxVertex());
+        assertEquals(4, g.vertexSize());
+        assertEquals(0, g.inDegree(1));
+        g.remove(2);
+        assertEquals(Arrays.asList(1, 3, 4), toList(g.verticesInt()));
+        assertEquals(2, g.add());
+        assertEquals(5, g.add());
+        assertEquals(5, g.maxVertex());
+        assertEquals(6, g.add());
+        assertEquals(7, g.add());
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5, 6, 7),
+                     g.getallVertices());
+        for (int v = 7; v >= 1; v -= 1) {
+            g.remove(v);
+        }
+        assertEquals(0, g.maxVertex());
+        assertEquals(0, g.vertexSize());
+        assertFalse(g.contains(0));
+        assertFalse(g.contains(-1));
+        assertEquals(1, g.add());
+        assertEquals(2, g.add());
+        assertEquals(3, g.add());
+    }
+
+    @Test
+    public void manyVertices() {
+        UndirectedGraph g = new UndirectedGraph();
+        final int n = 200000;
+        for (int i = 0; i < n; i += 1) {
+            g.add();
+        }
+        for (int v = 1; v < n; v += 1) {
+            g.add(v, v + 1);
+        }
+        for (int v = 2; v <= n; v += 2) {
+            g.remove(v);
+        }
+        assertEquals(n / 2, g.vertexSize());
+        assertEquals(n - 1, g.maxVertex());
+        assertEquals(0, g.edgeSize());
+        for (int v = 1; v <= n; v += 1) {
+            assertEquals(v % 2 == 1, g.contains(v));
+        }
+        assertEquals(2, g.add());
+    }
+
+    @Test
+    public void batchRemoval() {
+        DirectedGraph dg = new DirectedGraph();
+        for (int i = 0; i < 6; i += 1) {
+            dg.add();
+        }
+        for (int v = 2; v <= 6; v += 1) {
+            dg.add(1, v);
+            dg.add(v, 1);
+        }
+        dg.add(2, 3);
+        dg.add(3, 3);
+        dg.removeAll(new int[] { 1, 3, 9 });
+        assertEquals(4, dg.vertexSize());
+        assertEquals(0, dg.edgeSize());
+        assertEquals(6, dg.maxVertex());
+        assertEquals(0, dg.inDegree(2));
+        assertEquals(0, dg.outDegree(2));
+        assertEquals(1, dg.add());
+        assertEquals(3, dg.add());
+        dg.add(1, 2);
+        assertEquals(Arrays.asList(1), toList(dg.predecessorsInt(2)));
+
+        UndirectedGraph ug = new UndirectedGraph();
+        for (int i = 0; i < 5; i += 1) {
+            ug.add();
+        }
+        for (int v = 2; v <= 5; v += 1) {
+            ug.add(1, v);
+            ug.add(v, v);
+        }
+        ug.removeAll(new int[] { 3, 1, 2, 7 }, new int[] { 1, 5, 2, 7 });
+        assertEquals(5, ug.edgeSize());
+        assertEquals(Arrays.asList(2, 4), toList(ug.successorsInt(1)));
+        assertEquals(Arrays.asList(3), toList(ug.successorsInt(3)));
+        assertFalse(ug.contains(2, 2));
+        ug.removeAll(new int[] { 5, 4 });
+        assertEquals(3, ug.maxVertex());
+        assertEquals(2, ug.edgeSize());
+        assertEquals(Arrays.asList(2), toList(ug.successorsInt(1)));
+    }
+
+    @Test
+    public void removeHub() {
+        DirectedGraph g = new DirectedGraph();
+        final int n = 100000;
+        for (int i = 0; i < n; i += 1) {
+            g.add();
+        }
+        for (int v = 2; v <= n; v += 1) {
+            g.add(1, v);
+            g.add(v, 1);
+        }
+        int[] us = new int[n / 2], vs = new int[n / 2];
+        for (int i = 0; i < n / 2; i += 1) {
+            us[i] = 1;
+            vs[i] = i + 2;
+        }
+        g.removeAll(us, vs);
+        assertEquals(n - 1 + n - 1 - n / 2, g.edgeSize());
+        assertEquals(n / 2 + 2, g.successorsInt(1).nextInt());
+        g.remove(1);
+        assertEquals(0, g.edgeSize());
+        assertEquals(0, g.inDegree(n));
+    }
+
+    @Test
+    public void traversalMarks() {
+        DirectedGraph g = new DirectedGraph();
+        final int n = 200000;
+        for (int i = 0; i < n; i += 1) {
+            g.add();
+        }
+        for (int v = 1; v < n; v += 1) {
+            g.add(v, v + 1);
+        }
+        final int[] count = new int[1];
+        BreadthFirstTraversal bft = new BreadthFirstTraversal(g) {
+            @Override
+            protected boolean visit(int v) {
+                count[0] += 1;
+                return true;
+            }
+        };
+        bft.traverse(1);
+        assertEquals(n, count[0]);
+        assertTrue(bft.marked(n));
+        bft.traverse(1);
+        assertEquals(n, count[0]);
+        bft.clear();
+        assertFalse(bft.marked(n));
+        assertFalse(bft.marked(n + 10));
+        bft.traverse(n - 1);
+        assertEquals(n + 2, count[0]);
+        assertEquals(n + 1, g.add());
+        bft.traverse(n + 1);
+        assertEquals(n + 3, count[0]);
+    }
+
+    @Test
+    public void intFringes() {
+        IntDeque q = new IntDeque();
+        for (int i = 1; i <= 40; i += 1) {
+            q.addInt(i);
+            if (i % 3 == 0) {
+                q.pollInt();
+            }
+        }
+        q.addFirstInt(0);
+        assertEquals(28, q.size());
+        assertEquals(0, q.pollInt());
+        assertEquals(14, q.peekInt());
+        assertEquals(40, q.pollLastInt());
+        assertEquals(Integer.valueOf(14), q.poll());
+        assertEquals(15, (int) q.iterator().next());
+
+        IntStack s = new IntStack();
+        for (int i = 1; i <= 40; i += 1) {
+            s.add(i);
+        }
+        assertEquals(40, s.pollInt());
+        assertEquals(39, (int) s.iterator().next());
+        s.clear();
+        assertTrue(s.isEmpty());
+        assertNull(s.poll());
+
+        final double[] key = { 0, 5, 3, 8, 1, 9, 2 };
+        IntMinHeap h = new IntMinHeap(v -> key[v]);
+        for (int v = 1; v < key.length; v += 1) {
+            h.addInt(v);
+        }
+        key[5] = 0.5;
+        h.addInt(5);
+        key[4] = 7;
+        h.addInt(4);
+        assertEquals(6, h.size());
+        assertTrue(h.contains(5));
+        List<Integer> order = new ArrayList<>();
+        while (!h.isEmpty()) {
+            order.add(h.pollInt());
+        }
+        assertEquals(Arrays.asList(5, 6, 2, 1, 4, 3), order);
+        assertFalse(h.contains(5));
+    }
+
+    @Test
+    public void intFringeRemoval() {
+        IntDeque q = new IntDeque();
+        for (int i = 1; i <= 20; i += 1) {
+            q.addInt(i);
+            if (i % 2 == 0) {
+                q.pollInt();
+            }
+        }
+        q.addInt(12);
+        assertTrue(q.remove((Object) 12));
+        assertTrue(q.removeInt(20));
+        assertFalse(q.removeInt(20));
+        assertFalse(q.remove("12"));
+        assertEquals(Arrays.asList(11, 13, 14, 15, 16, 17, 18, 19, 12),
+                     new ArrayList<>(q));
+
+        IntStack s = new IntStack();
+        for (int i : new int[] { 1, 2, 3, 2, 4 }) {
+            s.addInt(i);
+        }
+        assertTrue(s.remove((Object) 2));
+        assertEquals(Arrays.asList(4, 3, 2, 1), new ArrayList<>(s));
+
+        final double[] key = new double[50];
+        Random rand = new Random(5);
+        IntMinHeap h = new IntMinHeap(v -> key[v]);
+        List<Integer> expected = new ArrayList<>();
+        for (int v = 0; v < key.length; v += 1) {
+            key[v] = rand.nextDouble();
+            h.addInt(v);
+            expected.add(v);
+        }
+        for (int v = 0; v < key.length; v += 3) {
+            assertTrue(h.remove((Object) v));
+            assertFalse(h.contains(v));
+            expected.remove((Object) v);
+        }
+        assertFalse(h.removeInt(0));
+        expected.sort((a, b) -> Double.compare(key[a], key[b]));
+        List<Integer> order = new ArrayList<>();
+        while (!h.isEmpty()) {
+            order.add(h.pollInt());
+        }
+        assertEquals(expected, order);
+
+        for (IntFringe f : new IntFringe[] { q, s, h }) {
+            try {
+                f.removeIf(v -> v > 0);
+                fail("removeIf supported");
+            } catch (UnsupportedOperationException excp) {
+                /* Expected. */
+            }
+            try {
+                f.retainAll(Collections.emptyList());
+                fail("retainAll supported");
+            } catch (UnsupportedOperationException excp) {
+                /* Expected. */
+            }
+        }
+    }
+
+    @Test
+    public void bestFirstTraversal() {
+        UndirectedGraph g = new UndirectedGraph();
+        for (int i = 0; i < 6; i += 1) {
+            g.add();
+        }
+        g.add(1, 6);
+        g.add(1, 2);
+        g.add(6, 3);
+        g.add(2, 5);
+        g.add(3, 4);
+        final List<Integer> visited = new ArrayList<>();
+        Traversal t = new Traversal(g, new IntMinHeap(v -> -v)) {
+            @Override
+            protected boolean visit(int v) {
+                visited.add(v);
+                return true;
+            }
+        };
+        t.traverse(1);
+        assertEquals(Arrays.asList(1, 6, 3, 4, 2, 5), visited);
+    }
+
+    @Test
+    public void stoppingTraversal() {
+        UndirectedGraph g = new UndirectedGraph();
+        for (int i = 0; i < 10; i += 1) {
+            g.add();
+        }
+        for (int v = 1; v < 10; v += 1) {
+            g.add(v, v + 1);
+        }
+        final List<Integer> visited = new ArrayList<>();
+        final int[] stop = { 4 };
+        BreadthFirstTraversal t = new BreadthFirstTraversal(g) {
+            @Override
+            protected boolean visit(int v) {
+                visited.add(v);
+                return v != stop[0];
+            }
+        };
+        t.traverse(1);
+        assertTrue(t.interrupted());
+        assertEquals(Arrays.asList(1, 2, 3, 4), visited);
+        assertTrue(t.resume());
+        assertEquals(10, visited.size());
+        assertFalse(t.interrupted());
+
+        visited.clear();
+        stop[0] = 0;
+        t.clear();
+        t.setMaxVisits(3);
+        t.traverse(5);
+        assertTrue(t.interrupted());
+        assertEquals(Arrays.asList(5, 4, 6), visited);
+        t.setMaxVisits(2);
+        assertFalse(t.resume());
+        assertEquals(Arrays.asList(5, 4, 6, 3, 7), visited);
+
+        visited.clear();
+        t.clear();
+        t.clearLimits();
+        t.setMaxDepth(2);
+        t.traverse(8);
+        assertFalse(t.interrupted());
+        Collections.sort(visited);
+        assertEquals(Arrays.asList(6, 7, 8, 9, 10), visited);
+
+        visited.clear();
+        t.clear();
+        t.clearLimits();
+        stop[0] = 4;
+        t.setDeadline(System.nanoTime());
+        t.traverse(1);
+        assertTrue(t.interrupted());
+        assertTrue(visited.isEmpty());
+        t.clearLimits();
+        assertFalse(t.resume());
+        assertEquals(Arrays.asList(1, 2, 3, 4), visited);
+    }
+
+    @Test
+    public void stoppingPostVisit() {
+        DirectedGraph g = new DirectedGraph();
+        for (int i = 0; i < 4; i += 1) {
+            g.add();
+        }
+        g.add(1, 2);
+        g.add(2, 3);
+        g.add(3, 4);
+        final List<Integer> post = new ArrayList<>();
+        Traversal t = new Traversal(g, new IntStack()) {
+            @Override
+            protected boolean shouldPostVisit(int v) {
+                return true;
+            }
+
+            @Override
+            protected boolean postVisit(int v) {
+                post.add(v);
+                return v != 3;
+            }
+        };
+        t.traverse(1);
+        assertTrue(t.interrupted());
+        assertEquals(Arrays.asList(4, 3), post);
+        assertTrue(t.resume());
+        assertEquals(Arrays.asList(4, 3, 2, 1), post);
+    }
+
+    @Test
+    public void depthFirstSearch() {
+        DirectedGraph g = new DirectedGraph();
+        for (int i = 0; i < 6; i += 1) {
+            g.add();
+        }
+        g.add(1, 2);
+        g.add(2, 3);
+        g.add(3, 1);
+        g.add(1, 4);
+        g.add(5, 4);
+        g.add(5, 5);
+        DepthFirstSearch dfs = new DepthFirstSearch(g).search();
+        assertArrayEquals(new int[] { 1, 2, 3, 4, 5, 6 }, dfs.preorder());
+        assertArrayEquals(new int[] { 3, 2, 4, 1, 5, 6 }, dfs.postorder());
+        assertEquals(1, dfs.discovery(1));
+        assertEquals(8, dfs.finish(1));
+        assertEquals(3, dfs.discovery(3));
+        assertEquals(4, dfs.finish(3));
+        assertEquals(2, dfs.parent(3));
+        assertEquals(0, dfs.parent(5));
+        assertEquals(2, dfs.backEdges().size());
+        assertArrayEquals(new int[] { 3, 1 }, dfs.backEdges().get(0));
+        assertArrayEquals(new int[] { 5, 5 }, dfs.backEdges().get(1));
+
+        UndirectedGraph u = new UndirectedGraph();
+        for (int i = 0; i < 4; i += 1) {
+            u.add();
+        }
+        u.add(1, 2);
+        u.add(2, 3);
+        u.add(3, 4);
+        assertTrue(new DepthFirstSearch(u).search().backEdges().isEmpty());
+        u.add(4, 2);
+        assertEquals(1, new DepthFirstSearch(u).search(1).backEdges().size());
+    }
+
+    @Test
+    public void deepDepthFirstSearch() {
+        DirectedGraph g = new DirectedGraph();
+        final int n = 1000000;
+        for (int i = 0; i < n; i += 1) {
+            g.add();
+        }
+        for (int v = 1; v < n; v += 1) {
+            g.add(v, v + 1);
+        }
+        DepthFirstSearch dfs = new DepthFirstSearch(g).search(1);
+        assertEquals(n, dfs.preorder().length);
+        assertEquals(n, dfs.postorder()[0]);
+        assertEquals(2 * n, dfs.finish(1));
+        assertTrue(dfs.backEdges().isEmpty());
+    }
+
+    @Test
+    public void topologicalSort() {
+        DirectedGraph g = new DirectedGraph();
+        for (int i = 0; i < 6; i += 1) {
+            g.add();
+        }
+        g.add(6, 3);
+        g.add(3, 1);
+        g.add(1, 2);
+        g.add(4, 2);
+        g.add(5, 4);
+        g.add(6, 5);
+        TopologicalSort sort = new TopologicalSort(g);
+        assertTrue(sort.isAcyclic());
+        assertNull(sort.cycle());
+        int[] order = sort.order();
+        assertEquals(6, order.length);
+        int[] position = new int[7];
+        for (int i = 0; i < order.length; i += 1) {
+            position[order[i]] = i;
+        }
+        for (int[] e : g.edges()) {
+            assertTrue(position[e[0]] < position[e[1]]);
+        }
+
+        g.add(2, 6);
+        sort = new TopologicalSort(g);
+        assertFalse(sort.isAcyclic());
+        assertNull(sort.order());
+        int[] cycle = sort.cycle();
+        assertTrue(cycle.length >= 2);
+        for (int i = 0; i < cycle.length; i += 1) {
+            assertTrue(g.contains(cycle[i],
+                                  cycle[(i + 1) % cycle.length]));
+        }
+    }
+
+    /** Returns the hop distances from SOURCE in G, computed serially, or
+     *  -1 for unreachable vertices, indexed by vertex. */
+    private static int[] hopDistances(Graph G, int source) {
+        int[] dist = new int[G.maxVertex() + 1];
+        Arrays.fill(dist, -1);
+        dist[source] = 0;
+        IntDeque queue = new IntDeque();
+        queue.addInt(source);
+        while (!queue.isEmpty()) {
+            int u = queue.pollInt();
+            for (IntIteration it = G.successorsInt(u); it.hasNext(); ) {
+                int v = it.nextInt();
+                if (dist[v] < 0) {
+                    dist[v] = dist[u] + 1;
+                    queue.addInt(v);
+                }
+            }
+        }
+        return dist;
+    }
+
+    @Test
+    public void parallelBreadthFirstSearch() {
+        Random rand = new Random(42);
+        for (int trial = 0; trial < 2; trial += 1) {
+            Graph g = trial == 0 ? new DirectedGraph() : new UndirectedGraph();
+            final int n = 50000;
+            for (int i = 0; i < n; i += 1) {
+                g.add();
+            }
+            for (int i = 0; i < 8 * n; i += 1) {
+                g.add(1 + rand.nextInt(n), 1 + rand.nextInt(n));
+            }
+            g.remove(n / 2);
+            ParallelBreadthFirstSearch bfs =
+                new ParallelBreadthFirstSearch(g).search(1);
+            int[] expected = hopDistances(g, 1);
+            for (int v = 1; v <= n; v += 1) {
+                assertEquals(expected[v], bfs.distance(v));
+                if (v != 1 && expected[v] > 0) {
+                    int p = bfs.parent(v);
+                    assertTrue(g.contains(p, v));
+                    assertEquals(expected[v] - 1, bfs.distance(p));
+                }
+            }
+            assertEquals(0, bfs.parent(1));
+            assertEquals(-1, bfs.distance(n / 2));
+            assertTrue(bfs.levels()[1] > 0);
+        }
+
+        DirectedGraph chain = new DirectedGraph();
+        for (int i = 0; i < 5; i += 1) {
+            chain.add();
+        }
+        chain.add(1, 2);
+        chain.add(2, 3);
+        ParallelBreadthFirstSearch bfs =
+            new ParallelBreadthFirstSearch(new FrozenGraph(chain, false));
+        assertEquals(2, bfs.search(1).distance(3));
+        assertEquals(-1, bfs.distance(4));
+        assertEquals(0, bfs.search(3).distance(3));
+        assertEquals(-1, bfs.distance(1));
+    }
+
+    @Test
+    public void multiSourceBreadthFirstSearch() {
+        Random rand = new Random(7);
+        DirectedGraph g = new DirectedGraph();
+        final int n = 5000;
+        for (int i = 0; i < n; i += 1) {
+            g.add();
+        }
+        for (int i = 0; i < 3 * n; i += 1) {
+            g.add(1 + rand.nextInt(n), 1 + rand.nextInt(n));
+        }
+        int[] sources = new int[100];
+        for (int i = 0; i < sources.length; i += 1) {
+            sources[i] = 1 + rand.nextInt(n);
+        }
+        sources[99] = sources[0];
+        MultiSourceBreadthFirstSearch msbfs =
+            new MultiSourceBreadthFirstSearch(g);
+        int[][] dist = msbfs.distances(sources);
+        long reachable;
+        reachable = 0;
+        for (int i = 0; i < sources.length; i += 1) {
+            int[] expected = hopDistances(g, sources[i]);
+            for (int v = 1; v <= n; v += 1) {
+                assertEquals(expected[v], dist[i][v]);
+                if (expected[v] >= 0) {
+                    reachable += 1;
+                }
+            }
+        }
+        final long[] count = new long[1];
+        final int[][] check = dist;
+        final int first = sources[70];
+        msbfs.search(sources, (s, v, d) -> {
+            count[0] += 1;
+            if (s == first) {
+                assertEquals(check[70][v], d);
+            }
+        });
+        assertEquals(reachable, count[0]);
+    }
+
+    @Test
+    public void multiSourceBreadthFirstSearchOnLongPath() {
+        final int n = 20000;
+        GraphBuilder builder = new GraphBuilder(false).vertices(n);
+        for (int v = 1; v < n / 2; v += 1) {
+            builder.addEdge(v, v + 1);
+        }
+        for (int v = n / 2 + 1; v <= n; v += 1) {
+            builder.addEdge(n / 2, v);
+        }
+        Graph g = builder.build();
+        int[] sources = new int[70];
+        for (int i = 0; i < sources.length; i += 1) {
+            sources[i] = 1 + i * (n / 2 / sources.length);
+        }
+        sources[69] = n;
+        int[][] dist = new MultiSourceBreadthFirstSearch(g).distances(sources);
+        for (int i = 0; i < sources.length; i += 1) {
+            assertArrayEquals(hopDistances(g, sources[i]), dist[i]);
+        }
+    }
 }
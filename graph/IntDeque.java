@@ -0,0 +1,135 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/** A first-in, first-out IntFringe (with additional operations at both
+ *  ends), held in a circular buffer of ints that doubles in size when
+ *  full.  As the fringe of a Traversal, it gives breadth-first order.
+ *  @author Wenhan Jin
+ */
+public class IntDeque extends IntFringe {
+
+    /** An empty deque. */
+    public IntDeque() {
+        _items = new int[INITIAL_CAPACITY];
+    }
+
+    /** Add V to my end. */
+    @Override
+    public void addInt(int v) {
+        grow();
+        _items[(_head + _size) & (_items.length - 1)] = v;
+        _size += 1;
+    }
+
+    /** Add V to my front. */
+    public void addFirstInt(int v) {
+        grow();
+        _head = (_head - 1) & (_items.length - 1);
+        _items[_head] = v;
+        _size += 1;
+    }
+
+    /** Remove and return my first item. */
+    @Override
+    public int pollInt() {
+        int v = peekInt();
+        _head = (_head + 1) & (_items.length - 1);
+        _size -= 1;
+        return v;
+    }
+
+    /** Remove and return my last item.  Throws NoSuchElementException
+     *  if I am empty. */
+    public int pollLastInt() {
+        if (_size == 0) {
+            throw new NoSuchElementException();
+        }
+        _size -= 1;
+        return _items[(_head + _size) & (_items.length - 1)];
+    }
+
+    @Override
+    public int peekInt() {
+        if (_size == 0) {
+            throw new NoSuchElementException();
+        }
+        return _items[_head];
+    }
+
+    /** Remove the occurrence of V nearest my front, if any. */
+    @Override
+    public boolean removeInt(int v) {
+        int mask = _items.length - 1;
+        for (int k = 0; k < _size; k += 1) {
+            if (_items[(_head + k) & mask] == v) {
+                for (int j = k + 1; j < _size; j += 1) {
+                    _items[(_head + j - 1) & mask] =
+                        _items[(_head + j) & mask];
+                }
+                _size -= 1;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return _size;
+    }
+
+    @Override
+    public void clear() {
+        _head = _size = 0;
+    }
+
+    /** Returns an iterator over my items from first to last. */
+    @Override
+    public Iterator<Integer> iterator() {
+        return new IntIteration() {
+            @Override
+            public boolean hasNext() {
+                return _k < _size;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                _k += 1;
+                return _items[(_head + _k - 1) & (_items.length - 1)];
+            }
+
+            /** Position of the next item, relative to _head. */
+            private int _k;
+        };
+    }
+
+    /** Make room for one more item. */
+    private void grow() {
+        if (_size == _items.length) {
+            int[] items = new int[2 * _items.length];
+            int n = _items.length - _head;
+            System.arraycopy(_items, _head, items, 0, n);
+            System.arraycopy(_items, 0, items, n, _head);
+            _items = items;
+            _head = 0;
+        }
+    }
+
+    /** Capacity of a new deque (a power of 2). */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** Circular buffer whose length is a power of 2.  My items are in
+     *  positions _head, _head + 1, ..., modulo its length. */
+    private int[] _items;
+    /** Position of my first item. */
+    private int _head;
+    /** Number of items in me. */
+    private int _size;
+}
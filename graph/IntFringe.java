@@ -0,0 +1,78 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.function.Predicate;
+
+/** A queue of vertices that can add and remove its items without boxing
+ *  them.  A Traversal whose fringe is an IntFringe uses addInt and
+ *  pollInt, so that traversing a graph allocates nothing per vertex.
+ *  The methods inherited from Queue work as usual on boxed Integers,
+ *  except that my iterators do not support remove, and removeIf,
+ *  removeAll, and retainAll throw UnsupportedOperationException.  A
+ *  single item may be removed with remove(Object) or removeInt.
+ *  @author Wenhan Jin
+ */
+public abstract class IntFringe extends AbstractQueue<Integer> {
+
+    /** Add V to me. */
+    public abstract void addInt(int v);
+
+    /** Remove and return my next item.  Throws NoSuchElementException if
+     *  I am empty. */
+    public abstract int pollInt();
+
+    /** Returns my next item without removing it.  Throws
+     *  NoSuchElementException if I am empty. */
+    public abstract int peekInt();
+
+    /** Remove one occurrence of V from me, if there is one.  Returns true
+     *  iff I contained V. */
+    public abstract boolean removeInt(int v);
+
+    @Override
+    public boolean remove(Object x) {
+        return x instanceof Integer && removeInt((Integer) x);
+    }
+
+    @Override
+    public boolean removeIf(Predicate<? super Integer> filter) {
+        throw bulkRemoval();
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> items) {
+        throw bulkRemoval();
+    }
+
+    @Override
+    public boolean retainAll(Collection<?> items) {
+        throw bulkRemoval();
+    }
+
+    @Override
+    public boolean offer(Integer v) {
+        addInt(v);
+        return true;
+    }
+
+    @Override
+    public Integer poll() {
+        return isEmpty() ? null : pollInt();
+    }
+
+    @Override
+    public Integer peek() {
+        return isEmpty() ? null : peekInt();
+    }
+
+    /** Returns the exception thrown by operations that remove items
+     *  selected by a collection or predicate. */
+    private static UnsupportedOperationException bulkRemoval() {
+        return new UnsupportedOperationException("fringe does not support "
+                                                 + "bulk removal");
+    }
+
+}
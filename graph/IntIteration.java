@@ -0,0 +1,88 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/** An Iteration over ints that can deliver its items without boxing
+ *  them.  Loops that care about allocation should be written
+ *      for (IntIteration it = G.successorsInt(v); it.hasNext(); ) {
+ *          int w = it.nextInt();
+ *          ...
+ *      }
+ *  An IntIteration may still be used in a foreach loop, in which case
+ *  each item is boxed as for any other Iteration<Integer>.
+ *  @author Wenhan Jin
+ */
+public abstract class IntIteration extends Iteration<Integer> {
+
+    /** Returns the next item.  Throws NoSuchElementException if there
+     *  is none. */
+    public abstract int nextInt();
+
+    @Override
+    public final Integer next() {
+        return nextInt();
+    }
+
+    /** Returns an IntIteration that delegates to IT. */
+    static IntIteration intIteration(final Iterator<Integer> it) {
+        if (it instanceof IntIteration) {
+            return (IntIteration) it;
+        }
+        return new IntIteration() {
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public int nextInt() {
+                return it.next();
+            }
+        };
+    }
+
+    /** Returns an IntIteration over A[FROM .. TO - 1]. */
+    static IntIteration intIteration(int[] a, int from, int to) {
+        return new Slice(a, from, to);
+    }
+
+    /** Returns an IntIteration with no items. */
+    static IntIteration empty() {
+        return new Slice(null, 0, 0);
+    }
+
+    /** An IntIteration over a segment of an array. */
+    private static class Slice extends IntIteration {
+        /** An iteration over A[FROM .. TO - 1]. */
+        Slice(int[] a, int from, int to) {
+            _a = a;
+            _k = from;
+            _end = to;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _k < _end;
+        }
+
+        @Override
+        public int nextInt() {
+            if (_k >= _end) {
+                throw new NoSuchElementException();
+            }
+            _k += 1;
+            return _a[_k - 1];
+        }
+
+        /** The array being traversed. */
+        private final int[] _a;
+        /** Position of the next item. */
+        private int _k;
+        /** End of the segment. */
+        private final int _end;
+    }
+
+}
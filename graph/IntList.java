@@ -0,0 +1,167 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.function.IntPredicate;
+
+/** A growable list of primitive ints.  Used to hold adjacency lists
+ *  without boxing each entry.
+ *  @author Wenhan Jin
+ */
+class IntList {
+
+    /** An empty list. */
+    IntList() {
+        _items = new int[INITIAL_CAPACITY];
+    }
+
+    /** A list containing A[FROM .. TO - 1]. */
+    IntList(int[] a, int from, int to) {
+        _items = Arrays.copyOfRange(a, from, Math.max(to, from + 1));
+        _size = to - from;
+    }
+
+    /** Returns the number of items in me. */
+    int size() {
+        return _size;
+    }
+
+    /** Returns true iff I am empty. */
+    boolean isEmpty() {
+        return _size == 0;
+    }
+
+    /** Returns item #K (0-based). */
+    int get(int k) {
+        return _items[k];
+    }
+
+    /** Append X to me. */
+    void add(int x) {
+        if (_size == _items.length) {
+            _items = Arrays.copyOf(_items, 2 * _items.length);
+        }
+        _items[_size] = x;
+        _size += 1;
+        _modCount += 1;
+    }
+
+    /** Remove and return my last item.  I must not be empty. */
+    int pop() {
+        _modCount += 1;
+        _size -= 1;
+        return _items[_size];
+    }
+
+    /** Returns the index of the first occurrence of X in me, or -1 if
+     *  there is none. */
+    int indexOf(int x) {
+        for (int i = 0; i < _size; i += 1) {
+            if (_items[i] == x) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns true iff X is in me. */
+    boolean contains(int x) {
+        return indexOf(x) >= 0;
+    }
+
+    /** Remove the first occurrence of X, if any, keeping the remaining
+     *  items in order.  Returns true iff X was present. */
+    boolean removeValue(int x) {
+        int k = indexOf(x);
+        if (k < 0) {
+            return false;
+        }
+        System.arraycopy(_items, k + 1, _items, k, _size - k - 1);
+        _size -= 1;
+        _modCount += 1;
+        return true;
+    }
+
+    /** Remove every item X for which DOOMED.test(X), keeping the
+     *  remaining items in order, in a single pass.  Returns the number of
+     *  items removed. */
+    int removeIf(IntPredicate doomed) {
+        int m;
+        m = 0;
+        for (int k = 0; k < _size; k += 1) {
+            if (!doomed.test(_items[k])) {
+                _items[m] = _items[k];
+                m += 1;
+            }
+        }
+        int removed = _size - m;
+        if (removed > 0) {
+            _size = m;
+            _modCount += 1;
+        }
+        return removed;
+    }
+
+    /** Remove all items. */
+    void clear() {
+        _size = 0;
+        _modCount += 1;
+    }
+
+    /** Returns a copy of my items. */
+    int[] toArray() {
+        return Arrays.copyOf(_items, _size);
+    }
+
+    /** Returns an iteration over my items.  The iteration fails fast: if
+     *  I am modified while it is in progress, its next call throws
+     *  ConcurrentModificationException. */
+    IntIteration iteration() {
+        return new Items();
+    }
+
+    /** A fail-fast iteration over my items. */
+    private class Items extends IntIteration {
+        @Override
+        public boolean hasNext() {
+            check();
+            return _k < _size;
+        }
+
+        @Override
+        public int nextInt() {
+            check();
+            if (_k >= _size) {
+                throw new NoSuchElementException();
+            }
+            _k += 1;
+            return _items[_k - 1];
+        }
+
+        /** Throw ConcurrentModificationException if my list has changed
+         *  since I was created. */
+        private void check() {
+            if (_expected != _modCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        /** Position of the next item. */
+        private int _k;
+        /** The value of _modCount when I was created. */
+        private final int _expected = _modCount;
+    }
+
+    /** Capacity of a new list. */
+    private static final int INITIAL_CAPACITY = 4;
+
+    /** My items, in positions [0 .. _size - 1]. */
+    private int[] _items;
+    /** The number of items in me. */
+    private int _size;
+    /** The number of structural changes made to me. */
+    private int _modCount;
+}
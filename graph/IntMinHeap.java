@@ -0,0 +1,180 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntToDoubleFunction;
+
+/** An IntFringe of distinct non-negative ints that delivers the item of
+ *  least priority first, for best-first traversals.  The priority of an
+ *  item is computed by a client-supplied function when the item is added.
+ *  The heap is indexed: it records the position of each item, so that
+ *  contains takes constant time, and adding an item that is already
+ *  present sets its priority to the current value of the function rather
+ *  than adding a duplicate.  The new priority may be lower (as in a
+ *  decrease-key operation) or higher, and the item moves accordingly.
+ *  Items of equal priority are delivered in arbitrary order.
+ *  @author Wenhan Jin
+ */
+public class IntMinHeap extends IntFringe {
+
+    /** An empty heap whose items have priorities given by PRIORITY. */
+    public IntMinHeap(IntToDoubleFunction priority) {
+        _priority = priority;
+        _items = new int[INITIAL_CAPACITY];
+        _keys = new double[INITIAL_CAPACITY];
+        _pos = new int[INITIAL_CAPACITY];
+    }
+
+    /** Add V, with priority PRIORITY(V), to me, or if V is already
+     *  present, change its priority to PRIORITY(V). */
+    @Override
+    public void addInt(int v) {
+        double key = _priority.applyAsDouble(v);
+        if (v >= _pos.length) {
+            _pos = Arrays.copyOf(_pos, Math.max(v + 1, 2 * _pos.length));
+        }
+        int k = _pos[v] - 1;
+        if (k < 0) {
+            if (_size == _items.length) {
+                _items = Arrays.copyOf(_items, 2 * _items.length);
+                _keys = Arrays.copyOf(_keys, 2 * _keys.length);
+            }
+            k = _size;
+            _size += 1;
+            place(v, key, k);
+            siftUp(k);
+        } else if (key < _keys[k]) {
+            _keys[k] = key;
+            siftUp(k);
+        } else {
+            _keys[k] = key;
+            siftDown(k);
+        }
+    }
+
+    /** Remove and return an item of least priority. */
+    @Override
+    public int pollInt() {
+        int v = peekInt();
+        _pos[v] = 0;
+        _size -= 1;
+        if (_size > 0) {
+            place(_items[_size], _keys[_size], 0);
+            siftDown(0);
+        }
+        return v;
+    }
+
+    @Override
+    public int peekInt() {
+        if (_size == 0) {
+            throw new NoSuchElementException();
+        }
+        return _items[0];
+    }
+
+    @Override
+    public boolean contains(Object x) {
+        if (!(x instanceof Integer)) {
+            return false;
+        }
+        int v = (Integer) x;
+        return v >= 0 && v < _pos.length && _pos[v] != 0;
+    }
+
+    @Override
+    public boolean removeInt(int v) {
+        if (v < 0 || v >= _pos.length || _pos[v] == 0) {
+            return false;
+        }
+        int k = _pos[v] - 1;
+        _pos[v] = 0;
+        _size -= 1;
+        if (k < _size) {
+            int last = _items[_size];
+            place(last, _keys[_size], k);
+            siftDown(k);
+            siftUp(_pos[last] - 1);
+        }
+        return true;
+    }
+
+    @Override
+    public int size() {
+        return _size;
+    }
+
+    @Override
+    public void clear() {
+        for (int k = 0; k < _size; k += 1) {
+            _pos[_items[k]] = 0;
+        }
+        _size = 0;
+    }
+
+    /** Returns an iterator over my items in no particular order. */
+    @Override
+    public Iterator<Integer> iterator() {
+        return IntIteration.intIteration(_items, 0, _size);
+    }
+
+    /** Move the item at position K toward the root until its parent's
+     *  priority is no greater. */
+    private void siftUp(int k) {
+        int v = _items[k];
+        double key = _keys[k];
+        while (k > 0) {
+            int parent = (k - 1) / 2;
+            if (_keys[parent] <= key) {
+                break;
+            }
+            place(_items[parent], _keys[parent], k);
+            k = parent;
+        }
+        place(v, key, k);
+    }
+
+    /** Move the item at position K toward the leaves until neither child
+     *  has smaller priority. */
+    private void siftDown(int k) {
+        int v = _items[k];
+        double key = _keys[k];
+        while (2 * k + 1 < _size) {
+            int child = 2 * k + 1;
+            if (child + 1 < _size && _keys[child + 1] < _keys[child]) {
+                child += 1;
+            }
+            if (key <= _keys[child]) {
+                break;
+            }
+            place(_items[child], _keys[child], k);
+            k = child;
+        }
+        place(v, key, k);
+    }
+
+    /** Store item V with priority KEY at position K. */
+    private void place(int v, double key, int k) {
+        _items[k] = v;
+        _keys[k] = key;
+        _pos[v] = k + 1;
+    }
+
+    /** Capacity of a new heap. */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** The function giving the priority of each item. */
+    private final IntToDoubleFunction _priority;
+    /** My items, in heap order, in _items[0 .. _size - 1]. */
+    private int[] _items;
+    /** _keys[K] is the priority of _items[K]. */
+    private double[] _keys;
+    /** _pos[V] is one more than the position of V in _items, or 0 if V
+     *  is not present. */
+    private int[] _pos;
+    /** Number of items in me. */
+    private int _size;
+}
@@ -0,0 +1,99 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/** A last-in, first-out IntFringe held in a growable array of ints.  As
+ *  the fringe of a Traversal, it gives depth-first order.
+ *  @author Wenhan Jin
+ */
+public class IntStack extends IntFringe {
+
+    /** An empty stack. */
+    public IntStack() {
+        _items = new int[INITIAL_CAPACITY];
+    }
+
+    /** Push V onto me. */
+    @Override
+    public void addInt(int v) {
+        if (_size == _items.length) {
+            _items = Arrays.copyOf(_items, 2 * _items.length);
+        }
+        _items[_size] = v;
+        _size += 1;
+    }
+
+    /** Pop and return my top item. */
+    @Override
+    public int pollInt() {
+        int v = peekInt();
+        _size -= 1;
+        return v;
+    }
+
+    @Override
+    public int peekInt() {
+        if (_size == 0) {
+            throw new NoSuchElementException();
+        }
+        return _items[_size - 1];
+    }
+
+    /** Remove the occurrence of V nearest my top, if any. */
+    @Override
+    public boolean removeInt(int v) {
+        for (int k = _size - 1; k >= 0; k -= 1) {
+            if (_items[k] == v) {
+                System.arraycopy(_items, k + 1, _items, k, _size - k - 1);
+                _size -= 1;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return _size;
+    }
+
+    @Override
+    public void clear() {
+        _size = 0;
+    }
+
+    /** Returns an iterator over my items from top to bottom. */
+    @Override
+    public Iterator<Integer> iterator() {
+        return new IntIteration() {
+            @Override
+            public boolean hasNext() {
+                return _k > 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                _k -= 1;
+                return _items[_k];
+            }
+
+            /** One more than the position of the next item. */
+            private int _k = _size;
+        };
+    }
+
+    /** Capacity of a new stack. */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** My items, bottom first, in _items[0 .. _size - 1]. */
+    private int[] _items;
+    /** Number of items in me. */
+    private int _size;
+}
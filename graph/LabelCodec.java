@@ -0,0 +1,17 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+/** A conversion between labels of type T and sequences of bytes, used to
+ *  save and load the labels of a LabeledGraph (see GraphIO).
+ *  @author Wenhan Jin
+ */
+public interface LabelCodec<T> {
+
+    /** Returns the bytes representing LABEL, which is not null. */
+    byte[] encode(T label);
+
+    /** Returns the label represented by BYTES, as produced by encode. */
+    T decode(byte[] bytes);
+
+}
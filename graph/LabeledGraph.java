@@ -3,6 +3,8 @@ package graph;
 /* See restrictions in Graph.java. */
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.function.Function;
 
 /** A Graph whose vertices are labeled with type VL and whose edges are
  *  labeled with type EL.
@@ -35,10 +37,47 @@ public class LabeledGraph<VL, EL> extends GraphFilter {
         return e < _elabel.size() ? _elabel.get(e) : null;
     }
 
+    /** Returns a vertex whose label has key KEY under the function passed
+     *  to indexVertices, or 0 if there is none.  If several vertices have
+     *  that key, returns an arbitrary one of them.  Requires that
+     *  indexVertices has been called. */
+    public int getVertex(Object key) {
+        if (_vertexIndex == null) {
+            throw new IllegalStateException("vertices are not indexed");
+        }
+        IntList vertices = _vertexIndex.get(key);
+        return vertices == null ? 0 : vertices.get(0);
+    }
+
+    /** Maintain an index from the key KEYOF(lab) of each non-null vertex
+     *  label LAB to the vertices bearing it, for use by getVertex.  The
+     *  index is kept up to date as vertices are labeled and removed
+     *  through me.  Labels whose key is null are not indexed.  Replaces
+     *  any previous vertex index. */
+    public void indexVertices(Function<? super VL, ?> keyOf) {
+        _vertexKey = keyOf;
+        _vertexIndex = new HashMap<>();
+        for (int v = 1; v < _vlabel.size(); v += 1) {
+            if (contains(v)) {
+                indexVertex(v, _vlabel.get(v));
+            }
+        }
+    }
+
     /** Return the successor of vertex U along the edge labeled LAB, if any,
      *  and otherwise 0. Assumes LAB is not null. If multiple edges have the
-     *  label EL, returns an arbitrary one of them. */
+     *  label EL, returns an arbitrary one of them.  Takes expected constant
+     *  time after a call to indexSuccessors(), and otherwise time
+     *  proportional to the out-degree of U. */
     public int getSuccessor(int u, EL lab) {
+        if (_successorIndex != null) {
+            if (!contains(u) || u >= _successorIndex.size()
+                || _successorIndex.get(u) == null) {
+                return 0;
+            }
+            IntList targets = _successorIndex.get(u).get(lab);
+            return targets == null ? 0 : targets.get(0);
+        }
         for (int v : successors(u)) {
             if (lab.equals(getLabel(u, v))) {
                 return v;
@@ -47,9 +86,40 @@ public class LabeledGraph<VL, EL> extends GraphFilter {
         return 0;
     }
 
+    /** Maintain an index from each vertex and edge label to the
+     *  successors along edges with that label, so that getSuccessor takes
+     *  expected constant time.  The index is kept up to date by the
+     *  methods that add, relabel, and remove edges through me.  Has no
+     *  effect if the index already exists. */
+    public void indexSuccessors() {
+        if (_successorIndex != null) {
+            return;
+        }
+        _successorIndex = new ArrayList<>();
+        for (int[] e : edges()) {
+            EL lab = getLabel(e[0], e[1]);
+            if (lab != null) {
+                index(e[0], e[1], lab);
+            }
+        }
+    }
+
+    /** Returns a new column of double values for my edges, whose
+     *  values are DFLT until set.  The value of an edge reverts to DFLT
+     *  when the edge is removed through me. */
+    public DoubleEdgeColumn doubleColumn(double dflt) {
+        DoubleEdgeColumn column = new DoubleEdgeColumn(this, dflt);
+        _columns.add(column);
+        return column;
+    }
+
     /** Set getVertexLabel(V) to LAB.  V must be one of my vertices. */
     public void setLabel(int v, VL lab) {
         checkMyVertex(v);
+        if (_vertexIndex != null && v < _vlabel.size()) {
+            unindexVertex(v, _vlabel.get(v));
+        }
+        indexVertex(v, lab);
         if (lab != null || v < _vlabel.size()) {
             expand(_vlabel, v + 1);
             _vlabel.set(v, lab);
@@ -62,10 +132,7 @@ public class LabeledGraph<VL, EL> extends GraphFilter {
         if (e == 0) {
             throw new IllegalArgumentException("no such edge");
         }
-        if (lab != null || e < _elabel.size()) {
-            expand(_elabel, e + 1);
-            _elabel.set(e, lab);
-        }
+        setEdgeLabel(u, v, e, lab);
     }
 
     /** Returns a new vertex labeled LAB, and adds it to me with no
@@ -82,19 +149,30 @@ public class LabeledGraph<VL, EL> extends GraphFilter {
      *  an edge (U, V), sets its label to EL. */
     public int add(int u, int v, EL lab) {
         int e = add(u, v);
-        if (lab != null || e < _elabel.size()) {
-            expand(_elabel, e + 1);
-            _elabel.set(e, lab);
-        }
+        setEdgeLabel(u, v, e, lab);
         return e;
     }
 
     @Override
     public void remove(int v) {
+        if (contains(v)) {
+            for (IntIteration it = successorsInt(v); it.hasNext(); ) {
+                int w = it.nextInt();
+                clearEdgeLabel(v, w, edgeId(v, w));
+            }
+            for (IntIteration it = predecessorsInt(v); it.hasNext(); ) {
+                int w = it.nextInt();
+                clearEdgeLabel(w, v, edgeId(w, v));
+            }
+        }
         super.remove(v);
         if (v < _vlabel.size()) {
+            unindexVertex(v, _vlabel.get(v));
             _vlabel.set(v, null);
         }
+        if (_successorIndex != null && v < _successorIndex.size()) {
+            _successorIndex.set(v, null);
+        }
     }
 
     @Override
@@ -102,8 +180,102 @@ public class LabeledGraph<VL, EL> extends GraphFilter {
         int e = edgeId(u, v);
         if (e != 0) {
             super.remove(u, v);
-            if (e < _elabel.size()) {
-                _elabel.set(e, null);
+            clearEdgeLabel(u, v, e);
+        }
+    }
+
+    /** Record in the vertex index, if any, that V is labeled LAB. */
+    private void indexVertex(int v, VL lab) {
+        if (_vertexIndex != null && lab != null) {
+            Object key = _vertexKey.apply(lab);
+            if (key != null) {
+                _vertexIndex.computeIfAbsent(key, k -> new IntList()).add(v);
+            }
+        }
+    }
+
+    /** Remove from the vertex index, if any, the fact that V is labeled
+     *  LAB. */
+    private void unindexVertex(int v, VL lab) {
+        if (_vertexIndex != null && lab != null) {
+            Object key = _vertexKey.apply(lab);
+            IntList vertices = key == null ? null : _vertexIndex.get(key);
+            if (vertices != null) {
+                vertices.removeValue(v);
+                if (vertices.isEmpty()) {
+                    _vertexIndex.remove(key);
+                }
+            }
+        }
+    }
+
+    /** Set the label of edge (U, V), whose id is E, to LAB, updating the
+     *  successor index, if any. */
+    private void setEdgeLabel(int u, int v, int e, EL lab) {
+        EL old = e < _elabel.size() ? _elabel.get(e) : null;
+        if (_successorIndex != null && old != null && !old.equals(lab)) {
+            unindex(u, v, old);
+        }
+        if (lab != null || e < _elabel.size()) {
+            expand(_elabel, e + 1);
+            _elabel.set(e, lab);
+        }
+        if (_successorIndex != null && lab != null && !lab.equals(old)) {
+            index(u, v, lab);
+        }
+    }
+
+    /** Remove the label and column values, if any, of edge (U, V), whose
+     *  id is E, so that they do not reappear on a new edge that
+     *  reuses E. */
+    private void clearEdgeLabel(int u, int v, int e) {
+        setEdgeLabel(u, v, e, null);
+        for (DoubleEdgeColumn column : _columns) {
+            column.clear(e);
+        }
+    }
+
+    /** Record in the successor index that (U, V) is labeled LAB. */
+    private void index(int u, int v, EL lab) {
+        indexOne(u, v, lab);
+        if (!isDirected() && u != v) {
+            indexOne(v, u, lab);
+        }
+    }
+
+    /** Record in the successor index that V is a successor of U along an
+     *  edge labeled LAB. */
+    private void indexOne(int u, int v, EL lab) {
+        expand(_successorIndex, u + 1);
+        HashMap<EL, IntList> byLabel = _successorIndex.get(u);
+        if (byLabel == null) {
+            byLabel = new HashMap<>();
+            _successorIndex.set(u, byLabel);
+        }
+        byLabel.computeIfAbsent(lab, k -> new IntList()).add(v);
+    }
+
+    /** Remove from the successor index the fact that (U, V) is labeled
+     *  LAB. */
+    private void unindex(int u, int v, EL lab) {
+        unindexOne(u, v, lab);
+        if (!isDirected() && u != v) {
+            unindexOne(v, u, lab);
+        }
+    }
+
+    /** Remove from the successor index the fact that V is a successor of
+     *  U along an edge labeled LAB. */
+    private void unindexOne(int u, int v, EL lab) {
+        if (u >= _successorIndex.size() || _successorIndex.get(u) == null) {
+            return;
+        }
+        HashMap<EL, IntList> byLabel = _successorIndex.get(u);
+        IntList targets = byLabel.get(lab);
+        if (targets != null) {
+            targets.removeValue(v);
+            if (targets.isEmpty()) {
+                byLabel.remove(lab);
             }
         }
     }
@@ -120,4 +292,15 @@ public class LabeledGraph<VL, EL> extends GraphFilter {
     private final ArrayList<VL> _vlabel = new ArrayList<>();
     /** Mapping of unique edge ids to edge labels. */
     private final ArrayList<EL> _elabel = new ArrayList<>();
+    /** The function giving the key of a vertex label in _vertexIndex. */
+    private Function<? super VL, ?> _vertexKey;
+    /** Mapping of vertex label keys to the vertices bearing them.  Null
+     *  unless indexVertices has been called. */
+    private HashMap<Object, IntList> _vertexIndex;
+    /** For each vertex number U, a map from each edge label to the
+     *  successors of U along edges with that label, or null if U has
+     *  none.  Null unless indexSuccessors has been called. */
+    private ArrayList<HashMap<EL, IntList>> _successorIndex;
+    /** Columns of edge values created by doubleColumn. */
+    private final ArrayList<DoubleEdgeColumn> _columns = new ArrayList<>();
 }
@@ -0,0 +1,134 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+/** A hash map from long keys to positive int values, using open
+ *  addressing with linear probing so that neither keys nor values are
+ *  boxed.  A value of 0 denotes "absent".
+ *  @author Wenhan Jin
+ */
+class LongIntMap {
+
+    /** An empty map. */
+    LongIntMap() {
+        clear();
+    }
+
+    /** Returns the number of keys in me. */
+    int size() {
+        return _size;
+    }
+
+    /** Returns the value mapped to KEY, or 0 if there is none. */
+    int get(long key) {
+        int i = slot(key);
+        while (_vals[i] != 0) {
+            if (_keys[i] == key) {
+                return _vals[i];
+            }
+            i = (i + 1) & _mask;
+        }
+        return 0;
+    }
+
+    /** Map KEY to VAL, which must be positive. */
+    void put(long key, int val) {
+        assert val > 0;
+        int i = slot(key);
+        while (_vals[i] != 0) {
+            if (_keys[i] == key) {
+                _vals[i] = val;
+                return;
+            }
+            i = (i + 1) & _mask;
+        }
+        _keys[i] = key;
+        _vals[i] = val;
+        _size += 1;
+        if (2 * _size > _vals.length) {
+            resize(2 * _vals.length);
+        }
+    }
+
+    /** Remove KEY from me.  Returns the value it had, or 0 if it was
+     *  absent. */
+    int remove(long key) {
+        int i = slot(key);
+        while (_vals[i] != 0) {
+            if (_keys[i] == key) {
+                int val = _vals[i];
+                deleteSlot(i);
+                _size -= 1;
+                return val;
+            }
+            i = (i + 1) & _mask;
+        }
+        return 0;
+    }
+
+    /** Remove all keys. */
+    void clear() {
+        _keys = new long[INITIAL_CAPACITY];
+        _vals = new int[INITIAL_CAPACITY];
+        _mask = INITIAL_CAPACITY - 1;
+        _size = 0;
+    }
+
+    /** Empty slot I, moving later entries of its probe sequence back so
+     *  that every remaining key is still reachable from its home slot. */
+    private void deleteSlot(int i) {
+        int j = i;
+        while (true) {
+            j = (j + 1) & _mask;
+            if (_vals[j] == 0) {
+                break;
+            }
+            int home = slot(_keys[j]);
+            boolean movable =
+                i <= j ? (home <= i || home > j) : (home <= i && home > j);
+            if (movable) {
+                _keys[i] = _keys[j];
+                _vals[i] = _vals[j];
+                i = j;
+            }
+        }
+        _vals[i] = 0;
+    }
+
+    /** Rehash all entries into tables of size CAPACITY. */
+    private void resize(int capacity) {
+        long[] keys = _keys;
+        int[] vals = _vals;
+        _keys = new long[capacity];
+        _vals = new int[capacity];
+        _mask = capacity - 1;
+        for (int k = 0; k < vals.length; k += 1) {
+            if (vals[k] != 0) {
+                int i = slot(keys[k]);
+                while (_vals[i] != 0) {
+                    i = (i + 1) & _mask;
+                }
+                _keys[i] = keys[k];
+                _vals[i] = vals[k];
+            }
+        }
+    }
+
+    /** Returns the home slot of KEY. */
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & _mask;
+    }
+
+    /** Initial table size (a power of 2). */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** Keys, valid where the corresponding _vals entry is non-zero. */
+    private long[] _keys;
+    /** Values; 0 marks an empty slot. */
+    private int[] _vals;
+    /** _vals.length - 1. */
+    private int _mask;
+    /** Number of keys present. */
+    private int _size;
+}
@@ -0,0 +1,442 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/** A read-only graph stored in compressed sparse row (CSR) form, like a
+ *  FrozenGraph, in a file that is mapped into memory rather than read
+ *  onto the Java heap.  The operating system pages the graph in as it is
+ *  used, so that a graph may be larger than the heap, its size does not
+ *  add to the work of the garbage collector, and programs that open the
+ *  same file share one copy of it in the page cache.
+ *
+ *  write(G, file) stores the structure of any Graph in a file, and
+ *  open(file) returns a MappedGraph for it.  Vertex numbers and the
+ *  order of successors are those of the original graph.  Edge ids are
+ *  positions in the CSR arrays (plus 1).  Operations that would modify
+ *  the graph throw UnsupportedOperationException.
+ *
+ *  The file format is described in GraphFile; GraphIO uses the same
+ *  format, so MappedGraph can open files saved by GraphIO.  Since a
+ *  single buffer can map at most 2GB, the file is mapped in chunks of
+ *  CHUNK_SIZE bytes; every value is aligned to its size, so none
+ *  straddles two chunks.
+ *  @author Wenhan Jin
+ */
+public class MappedGraph extends Graph {
+
+    /** Write the structure of G to FILE in the format read by open,
+     *  replacing any previous contents.  Predecessors of a directed graph
+     *  are recorded iff WITHPREDECESSORS. */
+    public static void write(Graph G, Path file, boolean withPredecessors)
+        throws IOException {
+        try (FileChannel channel =
+             FileChannel.open(file, StandardOpenOption.CREATE,
+                              StandardOpenOption.WRITE,
+                              StandardOpenOption.TRUNCATE_EXISTING)) {
+            ChannelSink out = new ChannelSink(channel);
+            GraphFile.writeStructure(G, withPredecessors, 0, out);
+            out.flush();
+        }
+    }
+
+    /** Write the structure of G to FILE in the format read by open,
+     *  including predecessors if G is directed. */
+    public static void write(Graph G, Path file) throws IOException {
+        write(G, file, true);
+    }
+
+    /** Returns the graph stored in FILE by write.  Throws IOException if
+     *  FILE is not a graph file, is shorter than its header requires, or
+     *  has more than Integer.MAX_VALUE entries in its successor or
+     *  predecessor lists (so that edge ids would not fit in an int). */
+    public static MappedGraph open(Path file) throws IOException {
+        try (FileChannel channel =
+             FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int n = (int) ((size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+            MappedByteBuffer[] chunks = new MappedByteBuffer[n];
+            for (int i = 0; i < n; i += 1) {
+                long start = (long) i * CHUNK_SIZE;
+                chunks[i] =
+                    channel.map(FileChannel.MapMode.READ_ONLY, start,
+                                Math.min(CHUNK_SIZE, size - start));
+            }
+            if (size < GraphFile.HEADER_SIZE
+                || chunks[0].getInt(0) != GraphFile.MAGIC) {
+                throw new IOException("not a graph file: " + file);
+            } else if (chunks[0].getInt(GraphFile.VERSION_POS)
+                       != GraphFile.VERSION) {
+                throw new IOException("unsupported graph file version: "
+                                      + file);
+            }
+            MappedGraph result = new MappedGraph(chunks);
+            result.check(size, file);
+            return result;
+        }
+    }
+
+    /** A graph whose file has been mapped into CHUNKS. */
+    private MappedGraph(MappedByteBuffer[] chunks) {
+        _chunks = chunks;
+        int flags = getInt(GraphFile.FLAGS_POS);
+        _directed = (flags & GraphFile.DIRECTED) != 0;
+        _maxVertex = getInt(GraphFile.MAX_VERTEX_POS);
+        _vertexSize = getInt(GraphFile.VERTEX_SIZE_POS);
+        _edgeSize = getInt(GraphFile.EDGE_SIZE_POS);
+        long entries = getLong(GraphFile.ENTRIES_POS);
+        _present = GraphFile.HEADER_SIZE;
+        _offsets = _present + 8L * GraphFile.bitmapLength(_maxVertex);
+        _targets = _offsets + 8L * (_maxVertex + 2L);
+        if ((flags & GraphFile.PREDECESSORS) != 0) {
+            _inOffsets = _targets + GraphFile.padded(4 * entries);
+            _sources = _inOffsets + 8L * (_maxVertex + 2L);
+        } else {
+            _inOffsets = _sources = -1;
+        }
+    }
+
+    /** Throw an IOException unless my header, read from FILE, is
+     *  consistent and describes sections that fit within its SIZE
+     *  bytes. */
+    private void check(long size, Path file) throws IOException {
+        long entries = getLong(GraphFile.ENTRIES_POS),
+            inEntries = getLong(GraphFile.IN_ENTRIES_POS);
+        if (_maxVertex < 0 || _vertexSize < 0 || _vertexSize > _maxVertex
+            || _edgeSize < 0 || entries < 0 || inEntries < 0) {
+            throw new IOException("corrupt graph file: " + file);
+        } else if (entries > Integer.MAX_VALUE
+                   || inEntries > Integer.MAX_VALUE) {
+            throw new IOException("graph file has too many edges: " + file);
+        }
+        long end;
+        if (_sources >= 0) {
+            end = _sources + GraphFile.padded(4 * inEntries);
+        } else {
+            end = _targets + GraphFile.padded(4 * entries);
+        }
+        if (end > size) {
+            throw new IOException("truncated graph file: " + file);
+        } else if (start(_offsets, 0) != 0
+                   || start(_offsets, _maxVertex + 1) != entries
+                   || _sources >= 0
+                      && (start(_inOffsets, 0) != 0
+                          || start(_inOffsets, _maxVertex + 1)
+                             != inEntries)) {
+            throw new IOException("corrupt graph file: " + file);
+        }
+    }
+
+    @Override
+    public int vertexSize() {
+        return _vertexSize;
+    }
+
+    @Override
+    public int maxVertex() {
+        return _maxVertex;
+    }
+
+    @Override
+    public int edgeSize() {
+        return _edgeSize;
+    }
+
+    @Override
+    public boolean isDirected() {
+        return _directed;
+    }
+
+    @Override
+    public int outDegree(int v) {
+        if (!contains(v)) {
+            return 0;
+        }
+        return (int) (start(_offsets, v + 1) - start(_offsets, v));
+    }
+
+    @Override
+    public int inDegree(int v) {
+        if (!contains(v)) {
+            return 0;
+        } else if (!_directed) {
+            return outDegree(v);
+        } else if (_sources >= 0) {
+            return (int) (start(_inOffsets, v + 1) - start(_inOffsets, v));
+        }
+        return count(predecessorsInt(v));
+    }
+
+    @Override
+    public boolean contains(int u) {
+        if (u <= 0 || u > _maxVertex) {
+            return false;
+        }
+        long word = getLong(_present + 8L * (u / Long.SIZE));
+        return (word & (1L << (u % Long.SIZE))) != 0;
+    }
+
+    @Override
+    public boolean contains(int u, int v) {
+        return contains(v) && find(u, v) >= 0;
+    }
+
+    @Override
+    public int add() {
+        throw readOnly();
+    }
+
+    @Override
+    public int add(int u, int v) {
+        throw readOnly();
+    }
+
+    @Override
+    public void remove(int v) {
+        throw readOnly();
+    }
+
+    @Override
+    public void remove(int u, int v) {
+        throw readOnly();
+    }
+
+    @Override
+    public Iteration<Integer> vertices() {
+        return verticesInt();
+    }
+
+    @Override
+    public IntIteration verticesInt() {
+        return new IntIteration() {
+            @Override
+            public boolean hasNext() {
+                while (_v <= _maxVertex && !contains(_v)) {
+                    _v += 1;
+                }
+                return _v <= _maxVertex;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                _v += 1;
+                return _v - 1;
+            }
+
+            /** Candidate for the next vertex. */
+            private int _v = 1;
+        };
+    }
+
+    @Override
+    public Iteration<Integer> successors(int v) {
+        return successorsInt(v);
+    }
+
+    @Override
+    public IntIteration successorsInt(int v) {
+        if (!contains(v)) {
+            return IntIteration.empty();
+        }
+        return new Slice(_targets, start(_offsets, v),
+                         start(_offsets, v + 1));
+    }
+
+    @Override
+    public Iteration<Integer> predecessors(int v) {
+        return predecessorsInt(v);
+    }
+
+    @Override
+    public IntIteration predecessorsInt(int v) {
+        if (!contains(v)) {
+            return IntIteration.empty();
+        } else if (!_directed) {
+            return successorsInt(v);
+        } else if (_sources >= 0) {
+            return new Slice(_sources, start(_inOffsets, v),
+                             start(_inOffsets, v + 1));
+        }
+        IntList result = new IntList();
+        for (int u = 1; u <= _maxVertex; u += 1) {
+            if (find(u, v) >= 0) {
+                result.add(u);
+            }
+        }
+        return result.iteration();
+    }
+
+    @Override
+    public void forEachSuccessor(int v, IntConsumer action) {
+        if (contains(v)) {
+            long end = start(_offsets, v + 1);
+            for (long k = start(_offsets, v); k < end; k += 1) {
+                action.accept(getInt(_targets + 4 * k));
+            }
+        }
+    }
+
+    @Override
+    public Iteration<int[]> edges() {
+        return new Iteration<int[]>() {
+            @Override
+            public boolean hasNext() {
+                while (!_ready) {
+                    while (_k >= _end) {
+                        _u += 1;
+                        if (_u > _maxVertex) {
+                            return false;
+                        }
+                        _k = start(_offsets, _u);
+                        _end = start(_offsets, _u + 1);
+                    }
+                    _v = getInt(_targets + 4 * _k);
+                    _k += 1;
+                    _ready = _directed || _u <= _v;
+                }
+                return true;
+            }
+
+            @Override
+            public int[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                _ready = false;
+                _edge[0] = _u;
+                _edge[1] = _v;
+                return _edge;
+            }
+
+            /** Source vertex of the edges being delivered. */
+            private int _u = 0;
+            /** Index of the next entry of _u's list to examine, and of the
+             *  end of that list. */
+            private long _k, _end;
+            /** The target of the next edge, if _ready. */
+            private int _v;
+            /** True iff (_u, _v) is the next edge to deliver. */
+            private boolean _ready;
+            /** The array returned by next(). */
+            private final int[] _edge = new int[2];
+        };
+    }
+
+    @Override
+    protected int edgeId(int u, int v) {
+        if (!contains(v)) {
+            return 0;
+        }
+        if (!_directed && u > v) {
+            return (int) (find(v, u) + 1);
+        }
+        return (int) (find(u, v) + 1);
+    }
+
+    /** Returns the index of V among the concatenated successor lists in
+     *  the list of U, or -1 if V is not a successor of U. */
+    private long find(int u, int v) {
+        if (!contains(u)) {
+            return -1;
+        }
+        long end = start(_offsets, u + 1);
+        for (long k = start(_offsets, u); k < end; k += 1) {
+            if (getInt(_targets + 4 * k) == v) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns entry V of the array of list starts at file position
+     *  OFFSETS. */
+    private long start(long offsets, int v) {
+        return getLong(offsets + 8L * v);
+    }
+
+    /** Returns the int at file position POS. */
+    private int getInt(long pos) {
+        return _chunks[(int) (pos >>> CHUNK_BITS)]
+            .getInt((int) (pos & (CHUNK_SIZE - 1)));
+    }
+
+    /** Returns the long at file position POS. */
+    private long getLong(long pos) {
+        return _chunks[(int) (pos >>> CHUNK_BITS)]
+            .getLong((int) (pos & (CHUNK_SIZE - 1)));
+    }
+
+    /** Returns the number of items remaining in IT. */
+    private static int count(IntIteration it) {
+        int n;
+        n = 0;
+        while (it.hasNext()) {
+            it.nextInt();
+            n += 1;
+        }
+        return n;
+    }
+
+    /** Returns the exception thrown by attempts to modify me. */
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("graph is read-only");
+    }
+
+    /** An iteration over a range of ints in my file. */
+    private class Slice extends IntIteration {
+        /** An iteration over items FROM .. TO - 1 of the array of ints
+         *  starting at file position BASE. */
+        Slice(long base, long from, long to) {
+            _pos = base + 4 * from;
+            _end = base + 4 * to;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _pos < _end;
+        }
+
+        @Override
+        public int nextInt() {
+            if (_pos >= _end) {
+                throw new NoSuchElementException();
+            }
+            _pos += 4;
+            return getInt(_pos - 4);
+        }
+
+        /** File positions of the next item and of the end of the
+         *  range. */
+        private long _pos, _end;
+    }
+
+    /** Log2 of CHUNK_SIZE. */
+    private static final int CHUNK_BITS = 30;
+    /** Size of each mapped chunk of a file. */
+    private static final long CHUNK_SIZE = 1L << CHUNK_BITS;
+
+    /** The mapped chunks of my file. */
+    private final MappedByteBuffer[] _chunks;
+    /** True iff I am directed. */
+    private final boolean _directed;
+    /** My maximum vertex number. */
+    private final int _maxVertex;
+    /** Number of vertices and of edges. */
+    private final int _vertexSize, _edgeSize;
+    /** File positions of the vertex bitmap, of the successor list starts,
+     *  and of the concatenated successor lists. */
+    private final long _present, _offsets, _targets;
+    /** File positions of the predecessor list starts and lists, or -1 if
+     *  predecessors are not recorded. */
+    private final long _inOffsets, _sources;
+}
@@ -0,0 +1,215 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+
+/** Breadth-first searches from many sources at once, computing the hop
+ *  distance from each source to each vertex (after Then et al., "The More
+ *  the Merrier: Efficient Multi-Source Graph Traversal").  Sources are
+ *  taken in batches of 64, each assigned one bit of a long.  Each vertex
+ *  holds a word of the sources that have reached it and a word of those
+ *  whose frontiers it is on, so one scan of a vertex's successors
+ *  advances the frontiers of all sources in the batch that contain it.
+ *
+ *  The vertices on some frontier are also kept in a list.  While the
+ *  edges leaving them are few, each level examines only those vertices
+ *  and the successors they reach, so that a batch takes O(V + E) time
+ *  even on graphs of large diameter, such as road networks.  Once the
+ *  frontier grows large, a level instead sweeps all vertices in order,
+ *  which is faster per vertex.  When the searches overlap, as they do
+ *  in connected graphs of small diameter, a batch costs little more than
+ *  a single search.  When they seldom meet, as from scattered sources on
+ *  a long path or a grid, a batch can cost a few times as much as
+ *  separate searches from its sources.
+ *  @author Wenhan Jin
+ */
+public class MultiSourceBreadthFirstSearch {
+
+    /** Receives the results of a search. */
+    @FunctionalInterface
+    public interface Visitor {
+        /** Record that the shortest path from SOURCE to VERTEX has
+         *  DISTANCE edges. */
+        void accept(int source, int vertex, int distance);
+    }
+
+    /** Searches of G.  If G is not a FrozenGraph, searches use a frozen
+     *  copy of G made here. */
+    public MultiSourceBreadthFirstSearch(Graph G) {
+        FrozenGraph F;
+        if (G instanceof FrozenGraph) {
+            F = (FrozenGraph) G;
+        } else {
+            F = new FrozenGraph(G, false);
+        }
+        _G = F;
+        _offsets = F.offsets();
+        _targets = F.targets();
+        int n = F.maxVertex() + 1;
+        _seen = new long[n];
+        _visit = new long[n];
+        _next = new long[n];
+        _frontier = new int[n];
+        _touched = new int[n];
+    }
+
+    /** Returns the hop distances from each of SOURCES: element [I][V] of
+     *  the result is the number of edges on a shortest path from
+     *  SOURCES[I] to V, or -1 if there is none. */
+    public int[][] distances(int... sources) {
+        final int[][] result = new int[sources.length][];
+        for (int i = 0; i < sources.length; i += 1) {
+            result[i] = new int[_seen.length];
+            Arrays.fill(result[i], -1);
+        }
+        for (int from = 0; from < sources.length; from += BATCH) {
+            final int base = from;
+            batch(sources, from, Math.min(sources.length, from + BATCH),
+                  (i, v, d) -> result[base + i][v] = d);
+        }
+        return result;
+    }
+
+    /** Search from each of SOURCES, calling OUT.accept(S, V, D) once for
+     *  each source S and vertex V reachable from S, where D is the hop
+     *  distance from S to V.  For each batch of 64 sources, calls are made
+     *  in order of increasing distance. */
+    public void search(final int[] sources, final Visitor out) {
+        for (int from = 0; from < sources.length; from += BATCH) {
+            final int base = from;
+            batch(sources, from, Math.min(sources.length, from + BATCH),
+                  (i, v, d) -> out.accept(sources[base + i], v, d));
+        }
+    }
+
+    /** Search from SOURCES[FROM .. TO - 1] (at most 64 of them), calling
+     *  OUT.accept(I, V, D) when V is found at distance D from
+     *  SOURCES[FROM + I]. */
+    private void batch(int[] sources, int from, int to, Visitor out) {
+        Arrays.fill(_seen, 0);
+        Arrays.fill(_visit, 0);
+        Arrays.fill(_next, 0);
+        _frontierSize = 0;
+        _frontierEdges = 0;
+        for (int i = from; i < to; i += 1) {
+            int s = sources[i];
+            if (!_G.contains(s)) {
+                throw new IllegalArgumentException("vertex not from Graph");
+            }
+            long bit = 1L << (i - from);
+            if (_visit[s] == 0) {
+                _frontier[_frontierSize] = s;
+                _frontierSize += 1;
+                _frontierEdges += _offsets[s + 1] - _offsets[s];
+            }
+            _seen[s] |= bit;
+            _visit[s] |= bit;
+            out.accept(i - from, s, 0);
+        }
+        int n = _seen.length;
+        for (int depth = 1; _frontierSize > 0; depth += 1) {
+            if (_frontierEdges * SPARSE_RATIO < n) {
+                sparseStep(depth, out);
+            } else {
+                denseStep(depth, out);
+            }
+        }
+    }
+
+    /** Advance the frontiers by one level, to distance DEPTH, examining
+     *  only the vertices in _frontier and their successors.  Report the
+     *  vertices found to OUT. */
+    private void sparseStep(int depth, Visitor out) {
+        int touched;
+        touched = 0;
+        for (int i = 0; i < _frontierSize; i += 1) {
+            int u = _frontier[i];
+            long visit = _visit[u];
+            _visit[u] = 0;
+            for (int k = _offsets[u]; k < _offsets[u + 1]; k += 1) {
+                int v = _targets[k];
+                if (_next[v] == 0) {
+                    _touched[touched] = v;
+                    touched += 1;
+                }
+                _next[v] |= visit;
+            }
+        }
+        _frontierSize = 0;
+        _frontierEdges = 0;
+        for (int i = 0; i < touched; i += 1) {
+            settle(_touched[i], depth, out);
+        }
+    }
+
+    /** Advance the frontiers by one level, to distance DEPTH, sweeping
+     *  all vertices.  Report the vertices found to OUT. */
+    private void denseStep(int depth, Visitor out) {
+        int n = _seen.length;
+        for (int u = 1; u < n; u += 1) {
+            long visit = _visit[u];
+            if (visit != 0) {
+                _visit[u] = 0;
+                for (int k = _offsets[u]; k < _offsets[u + 1]; k += 1) {
+                    _next[_targets[k]] |= visit;
+                }
+            }
+        }
+        _frontierSize = 0;
+        _frontierEdges = 0;
+        for (int v = 1; v < n; v += 1) {
+            if (_next[v] != 0) {
+                settle(v, depth, out);
+            }
+        }
+    }
+
+    /** Clear _next[V], first recording that V has been found at distance
+     *  DEPTH by the sources in _next[V] that had not yet reached it:
+     *  report each such source to OUT, and put V on their frontiers
+     *  (updating _frontier, _frontierSize, and _frontierEdges). */
+    private void settle(int v, int depth, Visitor out) {
+        long found = _next[v] & ~_seen[v];
+        _next[v] = 0;
+        if (found != 0) {
+            _seen[v] |= found;
+            _visit[v] = found;
+            _frontier[_frontierSize] = v;
+            _frontierSize += 1;
+            _frontierEdges += _offsets[v + 1] - _offsets[v];
+            do {
+                out.accept(Long.numberOfTrailingZeros(found), v, depth);
+                found &= found - 1;
+            } while (found != 0);
+        }
+    }
+
+    /** Number of sources searched together. */
+    private static final int BATCH = 64;
+    /** A level is expanded sparsely while the edges leaving the frontier
+     *  are fewer than 1/SPARSE_RATIO of the vertices. */
+    private static final long SPARSE_RATIO = 4;
+
+    /** The graph searched. */
+    private final FrozenGraph _G;
+    /** Successor lists of _G in CSR form. */
+    private final int[] _offsets, _targets;
+    /** For each vertex, the sources in the current batch that have reached
+     *  it, one bit per source. */
+    private final long[] _seen;
+    /** For each vertex, the sources whose frontier it is on. */
+    private final long[] _visit;
+    /** For each vertex, the sources whose next frontier it may be on. */
+    private final long[] _next;
+    /** The vertices whose _visit words are nonzero, in
+     *  _frontier[0 .. _frontierSize - 1]. */
+    private final int[] _frontier;
+    /** Number of vertices in _frontier. */
+    private int _frontierSize;
+    /** The sum of the out-degrees of the vertices in _frontier. */
+    private long _frontierEdges;
+    /** The vertices whose _next words were made nonzero by a sparse
+     *  step. */
+    private final int[] _touched;
+}
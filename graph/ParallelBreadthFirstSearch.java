@@ -0,0 +1,333 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/** A breadth-first search that computes the hop distance of each vertex
+ *  from a source, and a tree of shortest paths, using several threads.
+ *  The search proceeds one level at a time over a FrozenGraph.  Each
+ *  level is expanded in one of two directions (after Beamer, Asanovic, and
+ *  Patterson, "Direction-Optimizing Breadth-First Search"):
+ *
+ *  Top-down: each frontier vertex examines its successors, claiming the
+ *  unvisited ones with an atomic update of the visited bitmap.  This is
+ *  cheap while the frontier is small.
+ *
+ *  Bottom-up: each unvisited vertex examines its predecessors, stopping
+ *  at the first one in the frontier, which is held as a bitmap.  Threads
+ *  own disjoint words of the bitmaps, so no atomic operations are needed,
+ *  and most vertices stop early once the frontier is large.
+ *
+ *  The search switches to bottom-up when the edges leaving the frontier
+ *  exceed 1/ALPHA of those leaving unvisited vertices, and back to
+ *  top-down when the frontier shrinks below 1/BETA of the vertices.  Work
+ *  within a level is divided among the threads of a ForkJoinPool.
+ *
+ *  When several frontier vertices lead to a vertex, which of them becomes
+ *  its parent may vary from run to run; distances do not.
+ *  @author Wenhan Jin
+ */
+public class ParallelBreadthFirstSearch {
+
+    /** A search of G using the common ForkJoinPool. */
+    public ParallelBreadthFirstSearch(Graph G) {
+        this(G, ForkJoinPool.commonPool());
+    }
+
+    /** A search of G using the threads of POOL.  If G is not a FrozenGraph
+     *  that records predecessors (when directed), searches use a frozen
+     *  copy of G made here. */
+    public ParallelBreadthFirstSearch(Graph G, ForkJoinPool pool) {
+        FrozenGraph F;
+        if (G instanceof FrozenGraph
+            && (!G.isDirected() || ((FrozenGraph) G).sources() != null)) {
+            F = (FrozenGraph) G;
+        } else {
+            F = new FrozenGraph(G, true);
+        }
+        _G = F;
+        _pool = pool;
+        _offsets = F.offsets();
+        _targets = F.targets();
+        if (F.isDirected()) {
+            _inOffsets = F.inOffsets();
+            _sources = F.sources();
+        } else {
+            _inOffsets = _offsets;
+            _sources = _targets;
+        }
+        _n = F.maxVertex() + 1;
+        _words = (_n + 63) >>> 6;
+        _distance = new int[_n];
+        _parent = new int[_n];
+        _visited = new long[_words];
+        _front = new long[_words];
+        Arrays.fill(_distance, -1);
+    }
+
+    /** Search from vertex SOURCE, replacing the results of any previous
+     *  search.  Returns this search. */
+    public ParallelBreadthFirstSearch search(int source) {
+        if (!_G.contains(source)) {
+            throw new IllegalArgumentException("vertex not from Graph");
+        }
+        Arrays.fill(_distance, -1);
+        Arrays.fill(_parent, 0);
+        Arrays.fill(_visited, 0);
+        for (int v = 0; v < _n; v += 1) {
+            if (!_G.contains(v)) {
+                _visited[v >>> 6] |= 1L << v;
+            }
+        }
+        _visited[source >>> 6] |= 1L << source;
+        _distance[source] = 0;
+        _frontier = new int[] { source };
+        _frontierEdges = degree(source);
+        _unvisitedEdges = _targets.length - _frontierEdges;
+        _levels = _bottomUpLevels = 0;
+        boolean bottomUp = false;
+        while (_frontier.length > 0) {
+            if (!bottomUp) {
+                bottomUp = _frontierEdges > _unvisitedEdges / ALPHA;
+            } else {
+                bottomUp = _frontier.length >= _n / BETA;
+            }
+            _levels += 1;
+            if (bottomUp) {
+                _bottomUpLevels += 1;
+                bottomUpStep();
+            } else {
+                topDownStep();
+            }
+            _unvisitedEdges -= _frontierEdges;
+        }
+        return this;
+    }
+
+    /** Returns the number of edges on a shortest path from the source of
+     *  the last search to V, or -1 if there is none. */
+    public int distance(int v) {
+        return v > 0 && v < _n ? _distance[v] : -1;
+    }
+
+    /** Returns the predecessor of V on a shortest path from the source of
+     *  the last search, or 0 if V is the source or is unreachable. */
+    public int parent(int v) {
+        return v > 0 && v < _n ? _parent[v] : 0;
+    }
+
+    /** Returns the hop distances found by the last search, indexed by
+     *  vertex.  Not a copy. */
+    public int[] distances() {
+        return _distance;
+    }
+
+    /** Returns the parents found by the last search, indexed by vertex.
+     *  Not a copy. */
+    public int[] parents() {
+        return _parent;
+    }
+
+    /** Returns the number of levels expanded by the last search, and the
+     *  number of those expanded bottom-up. */
+    public int[] levels() {
+        return new int[] { _levels, _bottomUpLevels };
+    }
+
+    /** Expand _frontier by examining the successors of each of its
+     *  vertices. */
+    private void topDownStep() {
+        final int[] frontier = _frontier;
+        final int depth = _levels;
+        int chunks = (frontier.length + TOP_DOWN_GRAIN - 1) / TOP_DOWN_GRAIN;
+        final IntList[] found = new IntList[chunks];
+        final long[] edges = new long[chunks];
+        run(chunks, c -> {
+            IntList next = new IntList();
+            long m;
+            m = 0;
+            int end = Math.min(frontier.length, (c + 1) * TOP_DOWN_GRAIN);
+            for (int i = c * TOP_DOWN_GRAIN; i < end; i += 1) {
+                int u = frontier[i];
+                for (int k = _offsets[u]; k < _offsets[u + 1]; k += 1) {
+                    int v = _targets[k];
+                    long bit = 1L << v;
+                    if ((_visited[v >>> 6] & bit) == 0
+                        && ((long) BITS.getAndBitwiseOr(_visited, v >>> 6, bit)
+                            & bit) == 0) {
+                        _distance[v] = depth;
+                        _parent[v] = u;
+                        next.add(v);
+                        m += degree(v);
+                    }
+                }
+            }
+            found[c] = next;
+            edges[c] = m;
+        });
+        collect(found, edges);
+    }
+
+    /** Expand _frontier by examining the predecessors of each unvisited
+     *  vertex. */
+    private void bottomUpStep() {
+        Arrays.fill(_front, 0);
+        for (int v : _frontier) {
+            _front[v >>> 6] |= 1L << v;
+        }
+        final int depth = _levels;
+        int chunks = (_words + BOTTOM_UP_GRAIN - 1) / BOTTOM_UP_GRAIN;
+        final IntList[] found = new IntList[chunks];
+        final long[] edges = new long[chunks];
+        run(chunks, c -> {
+            IntList next = new IntList();
+            long m;
+            m = 0;
+            int end = Math.min(_words, (c + 1) * BOTTOM_UP_GRAIN);
+            for (int w = c * BOTTOM_UP_GRAIN; w < end; w += 1) {
+                long unvisited = ~_visited[w];
+                if (w == _words - 1 && (_n & 63) != 0) {
+                    unvisited &= (1L << _n) - 1;
+                }
+                long added;
+                added = 0;
+                while (unvisited != 0) {
+                    long bit = Long.lowestOneBit(unvisited);
+                    unvisited ^= bit;
+                    int v = (w << 6) + Long.numberOfTrailingZeros(bit);
+                    for (int k = _inOffsets[v]; k < _inOffsets[v + 1];
+                         k += 1) {
+                        int u = _sources[k];
+                        if ((_front[u >>> 6] & (1L << u)) != 0) {
+                            _distance[v] = depth;
+                            _parent[v] = u;
+                            added |= bit;
+                            next.add(v);
+                            m += degree(v);
+                            break;
+                        }
+                    }
+                }
+                _visited[w] |= added;
+            }
+            found[c] = next;
+            edges[c] = m;
+        });
+        collect(found, edges);
+    }
+
+    /** Set _frontier to the concatenation of FOUND, and _frontierEdges
+     *  to the sum of EDGES. */
+    private void collect(IntList[] found, long[] edges) {
+        int size;
+        size = 0;
+        _frontierEdges = 0;
+        for (int c = 0; c < found.length; c += 1) {
+            size += found[c].size();
+            _frontierEdges += edges[c];
+        }
+        int[] frontier = new int[size];
+        size = 0;
+        for (IntList next : found) {
+            for (int i = 0; i < next.size(); i += 1) {
+                frontier[size] = next.get(i);
+                size += 1;
+            }
+        }
+        _frontier = frontier;
+    }
+
+    /** Returns the out-degree of V. */
+    private int degree(int v) {
+        return _offsets[v + 1] - _offsets[v];
+    }
+
+    /** Perform BODY.run(C) for 0 <= C < CHUNKS in _pool, returning when
+     *  all are done. */
+    private void run(int chunks, ChunkBody body) {
+        if (chunks == 1) {
+            body.run(0);
+        } else if (chunks > 1) {
+            _pool.invoke(new Chunks(0, chunks, body));
+        }
+    }
+
+    /** The work on one chunk of a level. */
+    private interface ChunkBody {
+        /** Process chunk C. */
+        void run(int c);
+    }
+
+    /** A task that processes a range of chunks, dividing it in half
+     *  until one chunk remains. */
+    @SuppressWarnings("serial")
+    private static class Chunks extends RecursiveAction {
+        /** A task performing BODY on chunks LO .. HI - 1. */
+        Chunks(int lo, int hi, ChunkBody body) {
+            _lo = lo;
+            _hi = hi;
+            _body = body;
+        }
+
+        @Override
+        protected void compute() {
+            if (_hi - _lo == 1) {
+                _body.run(_lo);
+            } else {
+                int mid = (_lo + _hi) >>> 1;
+                invokeAll(new Chunks(_lo, mid, _body),
+                          new Chunks(mid, _hi, _body));
+            }
+        }
+
+        /** Bounds of my range of chunks. */
+        private final int _lo, _hi;
+        /** The work to do on each chunk. */
+        private final ChunkBody _body;
+    }
+
+    /** Switch to bottom-up when the frontier's edges exceed 1/ALPHA of
+     *  those of unvisited vertices. */
+    private static final long ALPHA = 14;
+    /** Switch back to top-down when the frontier holds fewer than 1/BETA
+     *  of the vertices. */
+    private static final int BETA = 24;
+    /** Frontier vertices per chunk in a top-down step. */
+    private static final int TOP_DOWN_GRAIN = 512;
+    /** Bitmap words (of 64 vertices) per chunk in a bottom-up step. */
+    private static final int BOTTOM_UP_GRAIN = 32;
+    /** Atomic access to the elements of bitmaps. */
+    private static final VarHandle BITS =
+        MethodHandles.arrayElementVarHandle(long[].class);
+
+    /** The graph searched. */
+    private final FrozenGraph _G;
+    /** The threads that do the work. */
+    private final ForkJoinPool _pool;
+    /** Successor lists of _G in CSR form. */
+    private final int[] _offsets, _targets;
+    /** Predecessor lists of _G in CSR form. */
+    private final int[] _inOffsets, _sources;
+    /** One more than the maximum vertex, and the number of bitmap
+     *  words needed to hold _n bits. */
+    private final int _n, _words;
+    /** Hop distances and parents, indexed by vertex. */
+    private final int[] _distance, _parent;
+    /** Bitmap of vertices visited, or absent from _G. */
+    private final long[] _visited;
+    /** Bitmap of the current frontier, during a bottom-up step. */
+    private final long[] _front;
+    /** The vertices of the current frontier. */
+    private int[] _frontier;
+    /** The sum of the out-degrees of the vertices of _frontier. */
+    private long _frontierEdges;
+    /** The sum of the out-degrees of the unvisited vertices. */
+    private long _unvisitedEdges;
+    /** Number of levels expanded, in all and bottom-up. */
+    private int _levels, _bottomUpLevels;
+}
@@ -0,0 +1,125 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/** A read-only view of a graph with the direction of every edge
+ *  reversed: (U, V) is an edge of the view iff (V, U) is an edge of the
+ *  underlying graph, and successors and predecessors trade places.
+ *  Creating the view takes constant time and nothing is copied, so that,
+ *  for example, a traversal of the view from V finds the vertices from
+ *  which V is reachable.  The view of an undirected graph has the same
+ *  edges as the graph.  Its mutators throw
+ *  UnsupportedOperationException.
+ *  @author Wenhan Jin
+ */
+public class ReversedView extends GraphFilter {
+
+    /** A view of G with its edges reversed. */
+    public ReversedView(Graph G) {
+        super(G);
+        _G = G;
+    }
+
+    @Override
+    public int add() {
+        throw readOnly();
+    }
+
+    @Override
+    public int add(int u, int v) {
+        throw readOnly();
+    }
+
+    @Override
+    public void remove(int v) {
+        throw readOnly();
+    }
+
+    @Override
+    public void remove(int u, int v) {
+        throw readOnly();
+    }
+
+    @Override
+    public int outDegree(int v) {
+        return _G.inDegree(v);
+    }
+
+    @Override
+    public int inDegree(int v) {
+        return _G.outDegree(v);
+    }
+
+    @Override
+    public boolean contains(int u, int v) {
+        return _G.contains(v, u);
+    }
+
+    @Override
+    public Iteration<Integer> successors(int v) {
+        return _G.predecessors(v);
+    }
+
+    @Override
+    public Iteration<Integer> predecessors(int v) {
+        return _G.successors(v);
+    }
+
+    @Override
+    public IntIteration successorsInt(int v) {
+        return _G.predecessorsInt(v);
+    }
+
+    @Override
+    public IntIteration predecessorsInt(int v) {
+        return _G.successorsInt(v);
+    }
+
+    @Override
+    public void forEachSuccessor(int v, IntConsumer action) {
+        for (IntIteration it = _G.predecessorsInt(v); it.hasNext(); ) {
+            action.accept(it.nextInt());
+        }
+    }
+
+    @Override
+    public Iteration<int[]> edges() {
+        final Iteration<int[]> all = _G.edges();
+        return new Iteration<int[]>() {
+            @Override
+            public boolean hasNext() {
+                return all.hasNext();
+            }
+
+            @Override
+            public int[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int[] e = all.next();
+                _edge[0] = e[1];
+                _edge[1] = e[0];
+                return _edge;
+            }
+
+            /** The array returned by next(). */
+            private final int[] _edge = new int[2];
+        };
+    }
+
+    @Override
+    protected int edgeId(int u, int v) {
+        return _G.edgeId(v, u);
+    }
+
+    /** Returns the exception thrown by my mutators. */
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("view is read-only");
+    }
+
+    /** The underlying graph. */
+    private final Graph _G;
+}
@@ -37,7 +37,8 @@ public abstract class ShortestPaths {
     public void setPaths() {
         ArrayList<Integer> visited = new ArrayList<>();
         TreeQueue<Integer> queue = new TreeQueue<>(_comp);
-        for (int vertex: _G.vertices()) {
+        for (IntIteration it = _G.verticesInt(); it.hasNext(); ) {
+            int vertex = it.nextInt();
             if (vertex == _source) {
                 setWeight(vertex, 0);
             } else {
@@ -53,7 +54,9 @@ public abstract class ShortestPaths {
             if (current == _dest) {
                 break;
             }
-            for (int next: _G.successors(current)) {
+            for (IntIteration it = _G.successorsInt(current);
+                 it.hasNext(); ) {
+                int next = it.nextInt();
                 double oldcost = getWeight(next);
                 double newcost = getWeight(current)
                         + getWeight(current, next);
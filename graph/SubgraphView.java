@@ -0,0 +1,283 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+
+/** A read-only view of the part of a graph that passes a vertex mask and
+ *  an edge predicate.  Nothing is copied: each query consults the
+ *  underlying graph and skips excluded vertices and edges as it goes, so
+ *  that a view costs O(1) space and traversals and shortest-path
+ *  searches can run on it directly.  For example,
+ *      new SubgraphView(G, region, (u, v) -> !isToll(u, v))
+ *  contains the vertices of G whose bits are set in REGION, and the
+ *  edges of G between them that are not toll roads.
+ *
+ *  The view reflects later changes to the underlying graph and to the
+ *  mask.  Its counts (vertexSize, outDegree, edgeSize, and so forth) are
+ *  computed on demand, in time proportional to what they count.  Its
+ *  mutators throw UnsupportedOperationException.
+ *  @author Wenhan Jin
+ */
+public class SubgraphView extends GraphFilter {
+
+    /** A view of the vertices V of G for which VERTICES.get(V) and of the
+     *  edges (U, V) of G between them for which EDGES.test(U, V).  A null
+     *  VERTICES or EDGES excludes nothing.  For undirected graphs, EDGES
+     *  is always called with U <= V. */
+    public SubgraphView(Graph G, BitSet vertices, EdgePredicate edges) {
+        super(G);
+        _G = G;
+        _vertices = vertices;
+        _edges = edges;
+    }
+
+    @Override
+    public int add() {
+        throw readOnly();
+    }
+
+    @Override
+    public int add(int u, int v) {
+        throw readOnly();
+    }
+
+    @Override
+    public void remove(int v) {
+        throw readOnly();
+    }
+
+    @Override
+    public void remove(int u, int v) {
+        throw readOnly();
+    }
+
+    @Override
+    public int vertexSize() {
+        if (_vertices == null) {
+            return _G.vertexSize();
+        }
+        int n;
+        n = 0;
+        for (IntIteration it = verticesInt(); it.hasNext(); it.nextInt()) {
+            n += 1;
+        }
+        return n;
+    }
+
+    @Override
+    public int maxVertex() {
+        if (_vertices == null) {
+            return _G.maxVertex();
+        }
+        int v = _vertices.previousSetBit(_G.maxVertex());
+        while (v > 0 && !_G.contains(v)) {
+            v = _vertices.previousSetBit(v - 1);
+        }
+        return Math.max(v, 0);
+    }
+
+    @Override
+    public int edgeSize() {
+        int n;
+        n = 0;
+        for (IntIteration it = verticesInt(); it.hasNext(); ) {
+            int u = it.nextInt();
+            for (IntIteration succ = successorsInt(u); succ.hasNext(); ) {
+                int v = succ.nextInt();
+                if (isDirected() || u <= v) {
+                    n += 1;
+                }
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public int outDegree(int v) {
+        return count(successorsInt(v));
+    }
+
+    @Override
+    public int inDegree(int v) {
+        return count(predecessorsInt(v));
+    }
+
+    @Override
+    public boolean contains(int u) {
+        return (_vertices == null || u >= 0 && _vertices.get(u))
+            && _G.contains(u);
+    }
+
+    @Override
+    public boolean contains(int u, int v) {
+        return contains(u) && contains(v) && _G.contains(u, v)
+            && passes(u, v);
+    }
+
+    @Override
+    public Iteration<Integer> vertices() {
+        return verticesInt();
+    }
+
+    @Override
+    public IntIteration verticesInt() {
+        return new Filtered(_G.verticesInt()) {
+            @Override
+            boolean accept(int v) {
+                return _vertices == null || _vertices.get(v);
+            }
+        };
+    }
+
+    @Override
+    public Iteration<Integer> successors(int v) {
+        return successorsInt(v);
+    }
+
+    @Override
+    public IntIteration successorsInt(final int v) {
+        if (!contains(v)) {
+            return IntIteration.empty();
+        }
+        return new Filtered(_G.successorsInt(v)) {
+            @Override
+            boolean accept(int w) {
+                return contains(w) && passes(v, w);
+            }
+        };
+    }
+
+    @Override
+    public Iteration<Integer> predecessors(int v) {
+        return predecessorsInt(v);
+    }
+
+    @Override
+    public IntIteration predecessorsInt(final int v) {
+        if (!contains(v)) {
+            return IntIteration.empty();
+        }
+        return new Filtered(_G.predecessorsInt(v)) {
+            @Override
+            boolean accept(int w) {
+                return contains(w) && passes(w, v);
+            }
+        };
+    }
+
+    @Override
+    public Iteration<int[]> edges() {
+        final Iteration<int[]> all = _G.edges();
+        return new Iteration<int[]>() {
+            @Override
+            public boolean hasNext() {
+                while (_next == null && all.hasNext()) {
+                    int[] e = all.next();
+                    if (contains(e[0]) && contains(e[1])
+                        && passes(e[0], e[1])) {
+                        _next = e;
+                    }
+                }
+                return _next != null;
+            }
+
+            @Override
+            public int[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                int[] e = _next;
+                _next = null;
+                return e;
+            }
+
+            /** The next edge to deliver, or null if not yet found. */
+            private int[] _next;
+        };
+    }
+
+    @Override
+    protected int edgeId(int u, int v) {
+        return contains(u, v) ? _G.edgeId(u, v) : 0;
+    }
+
+    @Override
+    protected void checkMyVertex(int v) {
+        if (!contains(v)) {
+            throw new IllegalArgumentException("vertex not from Graph");
+        }
+    }
+
+    /** Returns true iff edge (U, V) of the underlying graph satisfies my
+     *  edge predicate. */
+    private boolean passes(int u, int v) {
+        if (_edges == null) {
+            return true;
+        }
+        if (!isDirected() && u > v) {
+            return _edges.test(v, u);
+        }
+        return _edges.test(u, v);
+    }
+
+    /** Returns the number of items remaining in IT. */
+    private static int count(IntIteration it) {
+        int n;
+        n = 0;
+        while (it.hasNext()) {
+            it.nextInt();
+            n += 1;
+        }
+        return n;
+    }
+
+    /** Returns the exception thrown by my mutators. */
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("view is read-only");
+    }
+
+    /** The items of another IntIteration that satisfy accept. */
+    private abstract static class Filtered extends IntIteration {
+        /** The items of BASE that satisfy accept. */
+        Filtered(IntIteration base) {
+            _base = base;
+        }
+
+        /** Returns true iff X is to be delivered. */
+        abstract boolean accept(int x);
+
+        @Override
+        public boolean hasNext() {
+            while (!_ready && _base.hasNext()) {
+                _next = _base.nextInt();
+                _ready = accept(_next);
+            }
+            return _ready;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            _ready = false;
+            return _next;
+        }
+
+        /** The iteration being filtered. */
+        private final IntIteration _base;
+        /** The next item to deliver, if _ready. */
+        private int _next;
+        /** True iff _next has been found and not yet delivered. */
+        private boolean _ready;
+    }
+
+    /** The underlying graph. */
+    private final Graph _G;
+    /** The vertices included, or null for all. */
+    private final BitSet _vertices;
+    /** The edges included, or null for all. */
+    private final EdgePredicate _edges;
+}
@@ -0,0 +1,64 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+/** A topological sort of a directed graph: an ordering of its vertices in
+ *  which every edge leads from an earlier vertex to a later one.  If the
+ *  graph has a cycle, there is no such order, and the sort instead
+ *  provides one cycle as a witness.  Computed by a single depth-first
+ *  search, in O(V + E) time.
+ *  @author Wenhan Jin
+ */
+public class TopologicalSort {
+
+    /** A topological sort of G, which must be directed. */
+    public TopologicalSort(Graph G) {
+        if (!G.isDirected()) {
+            throw new IllegalArgumentException("graph is undirected");
+        }
+        DepthFirstSearch dfs = new DepthFirstSearch(G).search();
+        if (dfs.backEdges().isEmpty()) {
+            int[] post = dfs.postorder();
+            _order = new int[post.length];
+            for (int i = 0; i < post.length; i += 1) {
+                _order[i] = post[post.length - 1 - i];
+            }
+            _cycle = null;
+        } else {
+            int[] edge = dfs.backEdges().get(0);
+            IntList path = new IntList();
+            for (int v = edge[0]; v != edge[1]; v = dfs.parent(v)) {
+                path.add(v);
+            }
+            path.add(edge[1]);
+            _cycle = new int[path.size()];
+            for (int i = 0; i < _cycle.length; i += 1) {
+                _cycle[i] = path.get(_cycle.length - 1 - i);
+            }
+            _order = null;
+        }
+    }
+
+    /** Returns true iff my graph has no cycles. */
+    public boolean isAcyclic() {
+        return _order != null;
+    }
+
+    /** Returns the vertices of my graph in topological order, or null if
+     *  it has a cycle. */
+    public int[] order() {
+        return _order;
+    }
+
+    /** Returns the vertices V1, V2, ..., Vk of a cycle in my graph, such
+     *  that (V1, V2), ..., (Vk-1, Vk), and (Vk, V1) are edges, or null if
+     *  my graph is acyclic.  A self-loop gives a cycle of one vertex. */
+    public int[] cycle() {
+        return _cycle;
+    }
+
+    /** The topological order, or null. */
+    private final int[] _order;
+    /** A cycle, or null. */
+    private final int[] _cycle;
+}
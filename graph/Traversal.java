@@ -5,7 +5,6 @@ package graph;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Queue;
-import java.util.ArrayList;
 
 /** Implements a generalized traversal of a graph.  At any given time,
  *  there is a particular collection of untraversed vertices---the "fringe."
@@ -16,14 +15,26 @@ import java.util.ArrayList;
  *  Generally, the client will extend Traversal.  By overriding the visit
  *  method, the client can determine what happens when a node is visited.
  *  By supplying an appropriate type of Queue object to the constructor,
- *  the client can control the behavior of the fringe. By overriding the
+ *  the client can control the behavior of the fringe.  If the fringe is
+ *  an IntFringe (such as IntDeque, IntStack, or IntMinHeap), vertices
+ *  are added to and removed from it without boxing. By overriding the
  *  shouldPostVisit and postVisit methods, the client can arrange for
  *  post-visits of a node (as in depth-first search).  By overriding
  *  the reverseSuccessors and processSuccessor methods, the client can control
  *  the addition of neighbor vertices to the fringe when a vertex is visited.
  *
+ *  A traversal stops early when visit or postVisit returns false, or when
+ *  it exceeds a budget set by setMaxVisits or setDeadline.  The fringe is
+ *  left intact, so that resume() can continue the traversal exactly where
+ *  it stopped.  A depth limit set by setMaxDepth does not stop the
+ *  traversal; it just prevents it from going deeper.
+ *
  *  Traversals may be interrupted or restarted, remembering the previously
- *  marked vertices.
+ *  marked vertices.  Marks are kept in arrays indexed by vertex, which
+ *  hold the number of the traversal "epoch" in which each vertex was
+ *  marked: a vertex is marked iff its entry equals the current epoch.
+ *  Thus marking and testing take constant time, and clear() simply starts
+ *  a new epoch.
  *  @author Wenhan Jin
  */
 public abstract class Traversal {
@@ -32,53 +43,138 @@ public abstract class Traversal {
     protected Traversal(Graph G, Queue<Integer> fringe) {
         _G = G;
         _fringe = fringe;
+        _intFringe = fringe instanceof IntFringe ? (IntFringe) fringe : null;
     }
 
     /** Unmark all vertices in the graph. */
     public void clear() {
-        _visited.clear();
+        if (_epoch == Integer.MAX_VALUE) {
+            Arrays.fill(_marks, 0);
+            Arrays.fill(_postMarks, 0);
+            Arrays.fill(_reached, 0);
+            _epoch = 0;
+        }
+        _epoch += 1;
     }
 
-    /** Initialize the fringe to V0 and perform a traversal. */
+    /** Initialize the fringe to V0 and perform a traversal.  Afterwards,
+     *  interrupted() tells whether the traversal was stopped by visit,
+     *  postVisit, or a budget before it completed. */
     public void traverse(Collection<Integer> V0) {
         _fringe.clear();
-        _fringe.addAll(V0);
+        _depthLimit = _maxDepth;
+        for (int v : V0) {
+            if (_depthLimit != Integer.MAX_VALUE) {
+                reach(v, 0);
+            }
+            addFringe(v);
+        }
+        resume();
+    }
+
+    /** Initialize the fringe to { V0 } and perform a traversal. */
+    public void traverse(int v0) {
+        traverse(Arrays.<Integer>asList(v0));
+    }
+
+    /** Continue the most recent traversal from where it stopped, with
+     *  fresh visit and time budgets.  Returns true iff the traversal ran
+     *  to completion.  Has no effect if it had already completed. */
+    public boolean resume() {
+        int visits;
+        visits = 0;
         while (!_fringe.isEmpty()) {
-            int V = _fringe.poll();
+            int V = peekFringe();
             if (marked(V)) {
-                if (shouldPostVisit(V) && !_postVisited.contains(V)) {
-                    postVisit(V);
-                    _postVisited.add(V);
+                pollFringe();
+                if (shouldPostVisit(V) && !isSet(_postMarks, V)) {
+                    _postMarks = set(_postMarks, V);
+                    if (!postVisit(V)) {
+                        return false;
+                    }
                 }
             } else {
+                if (visits >= _maxVisits
+                    || _hasDeadline && visits % DEADLINE_CHECK_INTERVAL == 0
+                       && System.nanoTime() - _deadline >= 0) {
+                    return false;
+                }
+                pollFringe();
                 mark(V);
-                visit(V);
-                _fringe.add(V);
-                for (int v : _G.successors(V)) {
-                    if (!marked(v)) {
-                        _fringe.add(v);
+                visits += 1;
+                boolean more = visit(V);
+                addFringe(V);
+                if (_depthLimit == Integer.MAX_VALUE) {
+                    for (IntIteration it = _G.successorsInt(V);
+                         it.hasNext(); ) {
+                        int v = it.nextInt();
+                        if (!marked(v)) {
+                            addFringe(v);
+                        }
+                    }
+                } else if (_depths[V] < _depthLimit) {
+                    int depth = _depths[V] + 1;
+                    for (IntIteration it = _G.successorsInt(V);
+                         it.hasNext(); ) {
+                        int v = it.nextInt();
+                        if (!marked(v)) {
+                            reach(v, depth);
+                            addFringe(v);
+                        }
                     }
                 }
+                if (!more) {
+                    return false;
+                }
             }
         }
+        return true;
     }
 
-    /** Initialize the fringe to { V0 } and perform a traversal. */
-    public void traverse(int v0) {
-        traverse(Arrays.<Integer>asList(v0));
+    /** Returns true iff the most recent traversal stopped before
+     *  completing, so that resume() would continue it. */
+    public boolean interrupted() {
+        return !_fringe.isEmpty();
+    }
+
+    /** Limit traversals to vertices reachable from a starting vertex by
+     *  paths of at most MAXDEPTH edges through visited vertices.  (For a
+     *  breadth-first traversal, this is exactly the set of vertices within
+     *  MAXDEPTH edges of the start.)  Takes effect at the next call to
+     *  traverse. */
+    public void setMaxDepth(int maxDepth) {
+        _maxDepth = maxDepth;
+    }
+
+    /** Stop each call to traverse or resume after it has visited
+     *  MAXVISITS vertices. */
+    public void setMaxVisits(int maxVisits) {
+        _maxVisits = maxVisits;
+    }
+
+    /** Stop traversals once System.nanoTime() reaches DEADLINE.  The
+     *  clock is consulted only every few visits, so a traversal may run
+     *  slightly past DEADLINE. */
+    public void setDeadline(long deadline) {
+        _deadline = deadline;
+        _hasDeadline = true;
+    }
+
+    /** Remove the limits set by setMaxDepth, setMaxVisits, and
+     *  setDeadline. */
+    public void clearLimits() {
+        _maxDepth = _maxVisits = Integer.MAX_VALUE;
+        _hasDeadline = false;
     }
 
     /** Returns true iff V has been marked. */
     protected boolean marked(int v) {
-        if (_visited.contains(v)) {
-            return true;
-        }
-        return false;
+        return isSet(_marks, v);
     }
 
     /** Mark vertex V. */
     protected void mark(int v) {
-        _visited.add(v);
+        _marks = set(_marks, v);
     }
 
     /** Perform a visit on vertex V.  Returns false iff the traversal is to
@@ -109,9 +205,10 @@ public abstract class Traversal {
      *  default implementation simply processes each successor using
      *  processSuccessor. */
     protected void processSuccessors(int u) {
-        for (int v : _G.successors(u)) {
+        for (IntIteration it = _G.successorsInt(u); it.hasNext(); ) {
+            int v = it.nextInt();
             if (processSuccessor(u, v)) {
-                _fringe.add(v);
+                addFringe(v);
             }
         }
     }
@@ -122,14 +219,94 @@ public abstract class Traversal {
         return !marked(v);
     }
 
+    /** Add V to the fringe. */
+    private void addFringe(int v) {
+        if (_intFringe != null) {
+            _intFringe.addInt(v);
+        } else {
+            _fringe.add(v);
+        }
+    }
+
+    /** Returns the next vertex on the fringe, which must not be empty. */
+    private int peekFringe() {
+        return _intFringe != null ? _intFringe.peekInt() : _fringe.peek();
+    }
+
+    /** Remove and return the next vertex from the fringe, which must not
+     *  be empty. */
+    private int pollFringe() {
+        return _intFringe != null ? _intFringe.pollInt() : _fringe.poll();
+    }
+
+    /** Record that V can be reached by a path of DEPTH edges, unless it
+     *  is already known to be reachable by a shorter one. */
+    private void reach(int v, int depth) {
+        if (!isSet(_reached, v) || depth < _depths[v]) {
+            _reached = set(_reached, v);
+            _depths = grow(_depths, v);
+            _depths[v] = depth;
+        }
+    }
+
+    /** Returns true iff MARKS[V] records a mark in the current epoch. */
+    private boolean isSet(int[] marks, int v) {
+        return v < marks.length && marks[v] == _epoch;
+    }
+
+    /** Record a mark for V in the current epoch in MARKS, or in a larger
+     *  copy of MARKS if V is out of its range.  Returns the array used. */
+    private int[] set(int[] marks, int v) {
+        marks = grow(marks, v);
+        marks[v] = _epoch;
+        return marks;
+    }
+
+    /** Returns A, or a larger copy of A if V is out of its range. */
+    private int[] grow(int[] a, int v) {
+        if (v >= a.length) {
+            a = Arrays.copyOf(a, Math.max(v + 1,
+                                          Math.max(2 * a.length,
+                                                   _G.maxVertex() + 1)));
+        }
+        return a;
+    }
+
     /** The graph being traversed. */
     private final Graph _G;
     /** The fringe. */
     protected final Queue<Integer> _fringe;
+    /** The fringe, if it is an IntFringe, and otherwise null. */
+    private final IntFringe _intFringe;
+
+    /** Number of visits between checks of the deadline. */
+    private static final int DEADLINE_CHECK_INTERVAL = 64;
+
+    /** Maximum depth of visited vertices, or Integer.MAX_VALUE, for
+     *  future traversals. */
+    private int _maxDepth = Integer.MAX_VALUE;
+    /** The value of _maxDepth when the current traversal started. */
+    private int _depthLimit = Integer.MAX_VALUE;
+    /** Maximum number of visits per call to resume. */
+    private int _maxVisits = Integer.MAX_VALUE;
+    /** Value of System.nanoTime() at which to stop, if _hasDeadline. */
+    private long _deadline;
+    /** True iff a deadline has been set. */
+    private boolean _hasDeadline;
 
-    /** The visited vertices. */
-    private ArrayList<Integer> _visited = new ArrayList<>();
-    /** The post visited vertices. */
-    private ArrayList<Integer> _postVisited = new ArrayList<>();
+    /** The current epoch.  Vertex V is marked iff _marks[V] == _epoch,
+     *  and has been post-visited iff _postMarks[V] == _epoch. */
+    private int _epoch = 1;
+    /** Epochs in which vertices were marked, indexed by vertex. */
+    private int[] _marks = new int[0];
+    /** Epochs in which vertices were post-visited, indexed by vertex. */
+    private int[] _postMarks = new int[0];
+    /** Epochs in which vertices were reached, indexed by vertex, when
+     *  there is a depth limit.  _depths[V] is meaningful only if
+     *  _reached[V] == _epoch. */
+    private int[] _reached = new int[0];
+    /** Length of the shortest known path to each reached vertex from a
+     *  starting vertex. */
+    private int[] _depths = new int[0];
 
 }
@@ -0,0 +1,642 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/** A Graph that may be modified while other threads search it.  Every
+ *  change (or group of changes made with update) is committed as a new
+ *  immutable version of the graph.  snapshot() returns the current
+ *  version, which its holder may search without locks for as long as it
+ *  likes and which never changes.  The accessors of a VersionedGraph
+ *  itself always consult the latest version, so a sequence of them may
+ *  see different versions; queries that need a consistent view should
+ *  use a snapshot.
+ *
+ *  Versions share structure.  The adjacency lists are divided into
+ *  segments of 256 vertices, and committing a change copies only
+ *  the table of segments, the segments containing affected vertices,
+ *  and the affected lists.  Writers are serialized.
+ *
+ *  Edge ids are never reused, so that an edge keeps its id in every
+ *  version that contains it.
+ *  @author Wenhan Jin
+ */
+public class VersionedGraph extends GraphFilter {
+
+    /** An empty graph, directed iff DIRECTED. */
+    public VersionedGraph(boolean directed) {
+        this(new Head(directed));
+    }
+
+    /** A graph whose current version is maintained by HEAD. */
+    private VersionedGraph(Head head) {
+        super(head);
+        _head = head;
+    }
+
+    /** Returns the current version of me, as a Graph that will not
+     *  change.  Its mutators throw UnsupportedOperationException. */
+    public Graph snapshot() {
+        return _head.current();
+    }
+
+    /** Returns the number of versions committed so far. */
+    public long version() {
+        return _head.current().version();
+    }
+
+    /** Apply CHANGES to a private copy of the current version, and then
+     *  commit the result as a single new version.  CHANGES receives a
+     *  Graph that it may query and modify freely; no other writer runs
+     *  until it is finished.  If CHANGES throws an exception, nothing is
+     *  committed: the current version, and the vertex numbers and edge
+     *  ids that later changes will use, are as if update had not been
+     *  called, and the exception propagates to the caller. */
+    public void update(Consumer<Graph> changes) {
+        _head.update(changes);
+    }
+
+    /** The graph that maintains my versions. */
+    private final Head _head;
+
+    /** Number of bits of a vertex number that select its position in a
+     *  segment. */
+    private static final int SEGMENT_BITS = 8;
+    /** Number of vertices per segment. */
+    private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+    /** An empty adjacency list. */
+    private static final int[] EMPTY = new int[0];
+
+    /** The latest version of a VersionedGraph, whose accessors consult
+     *  the current Version and whose mutators commit new ones. */
+    private static class Head extends Graph {
+
+        /** A head for an empty graph, directed iff DIRECTED. */
+        Head(boolean directed) {
+            _state = new WriterState();
+            _current = new Version(directed);
+        }
+
+        /** Returns the current version. */
+        Version current() {
+            return _current;
+        }
+
+        /** Apply CHANGES to a draft of the next version and commit it,
+         *  unless CHANGES throws an exception, in which case discard the
+         *  draft and restore my WriterState. */
+        synchronized void update(Consumer<Graph> changes) {
+            WriterState saved = new WriterState(_state);
+            Version draft = new Version(_current, _state);
+            boolean completed;
+            completed = false;
+            try {
+                changes.accept(draft);
+                completed = true;
+            } finally {
+                draft.seal();
+                if (completed) {
+                    _current = draft;
+                } else {
+                    _state.restore(saved);
+                }
+            }
+        }
+
+        @Override
+        public int vertexSize() {
+            return _current.vertexSize();
+        }
+
+        @Override
+        public int maxVertex() {
+            return _current.maxVertex();
+        }
+
+        @Override
+        public int edgeSize() {
+            return _current.edgeSize();
+        }
+
+        @Override
+        public boolean isDirected() {
+            return _current.isDirected();
+        }
+
+        @Override
+        public int outDegree(int v) {
+            return _current.outDegree(v);
+        }
+
+        @Override
+        public int inDegree(int v) {
+            return _current.inDegree(v);
+        }
+
+        @Override
+        public boolean contains(int u) {
+            return _current.contains(u);
+        }
+
+        @Override
+        public boolean contains(int u, int v) {
+            return _current.contains(u, v);
+        }
+
+        @Override
+        public synchronized int add() {
+            Version draft = new Version(_current, _state);
+            int v = draft.add();
+            draft.seal();
+            _current = draft;
+            return v;
+        }
+
+        @Override
+        public synchronized int add(int u, int v) {
+            if (_current.contains(u, v)) {
+                return _current.edgeId(u, v);
+            }
+            Version draft = new Version(_current, _state);
+            int e = draft.add(u, v);
+            draft.seal();
+            _current = draft;
+            return e;
+        }
+
+        @Override
+        public synchronized void remove(int v) {
+            if (_current.contains(v)) {
+                Version draft = new Version(_current, _state);
+                draft.remove(v);
+                draft.seal();
+                _current = draft;
+            }
+        }
+
+        @Override
+        public synchronized void remove(int u, int v) {
+            if (_current.contains(u, v)) {
+                Version draft = new Version(_current, _state);
+                draft.remove(u, v);
+                draft.seal();
+                _current = draft;
+            }
+        }
+
+        @Override
+        public Iteration<Integer> vertices() {
+            return _current.vertices();
+        }
+
+        @Override
+        public IntIteration verticesInt() {
+            return _current.verticesInt();
+        }
+
+        @Override
+        public Iteration<Integer> successors(int v) {
+            return _current.successors(v);
+        }
+
+        @Override
+        public IntIteration successorsInt(int v) {
+            return _current.successorsInt(v);
+        }
+
+        @Override
+        public Iteration<Integer> predecessors(int v) {
+            return _current.predecessors(v);
+        }
+
+        @Override
+        public IntIteration predecessorsInt(int v) {
+            return _current.predecessorsInt(v);
+        }
+
+        @Override
+        public Iteration<int[]> edges() {
+            return _current.edges();
+        }
+
+        @Override
+        protected int edgeId(int u, int v) {
+            return _current.edgeId(u, v);
+        }
+
+        /** The latest committed version. */
+        private volatile Version _current;
+        /** Bookkeeping shared by successive drafts. */
+        private final WriterState _state;
+    }
+
+    /** Information needed only by writers, and so not kept in each
+     *  version. */
+    private static class WriterState {
+        /** A state with no free vertex numbers and no edge ids
+         *  assigned. */
+        WriterState() {
+        }
+
+        /** A copy of STATE. */
+        WriterState(WriterState state) {
+            _free.addAll(state._free);
+            _lastEdgeId = state._lastEdgeId;
+        }
+
+        /** Make my contents those of STATE. */
+        void restore(WriterState state) {
+            _free.clear();
+            _free.addAll(state._free);
+            _lastEdgeId = state._lastEdgeId;
+        }
+
+        /** Unused vertex numbers less than the current maximum vertex. */
+        private final PriorityQueue<Integer> _free = new PriorityQueue<>();
+        /** The last edge id assigned. */
+        private int _lastEdgeId;
+    }
+
+    /** One version of a VersionedGraph.  A Version starts as a draft,
+     *  which may be modified, and becomes immutable when sealed.  The
+     *  adjacency list of vertex V is an array of alternating neighbors
+     *  and edge ids, found at _out[V / SEGMENT_SIZE][V % SEGMENT_SIZE]
+     *  (and similarly for predecessors in _in, for directed graphs).  The
+     *  list of a missing vertex is null.  Lists and segments are shared
+     *  among versions and never modified once sealed. */
+    private static class Version extends Graph {
+
+        /** A sealed, empty version, directed iff DIRECTED. */
+        Version(boolean directed) {
+            _directed = directed;
+            _out = new int[0][][];
+            _in = directed ? new int[0][][] : null;
+        }
+
+        /** A draft whose initial contents are those of BASE, using STATE
+         *  to allocate vertex numbers and edge ids. */
+        Version(Version base, WriterState state) {
+            _directed = base._directed;
+            _version = base._version + 1;
+            _maxVertex = base._maxVertex;
+            _vertexSize = base._vertexSize;
+            _edgeSize = base._edgeSize;
+            _out = base._out.clone();
+            _in = base._in == null ? null : base._in.clone();
+            _state = state;
+            _ownedOut = new boolean[_out.length];
+            _ownedIn = new boolean[_out.length];
+        }
+
+        /** Make me immutable. */
+        void seal() {
+            _state = null;
+            _ownedOut = _ownedIn = null;
+        }
+
+        /** Returns my version number. */
+        long version() {
+            return _version;
+        }
+
+        @Override
+        public int vertexSize() {
+            return _vertexSize;
+        }
+
+        @Override
+        public int maxVertex() {
+            return _maxVertex;
+        }
+
+        @Override
+        public int edgeSize() {
+            return _edgeSize;
+        }
+
+        @Override
+        public boolean isDirected() {
+            return _directed;
+        }
+
+        @Override
+        public int outDegree(int v) {
+            int[] out = list(_out, v);
+            return out == null ? 0 : out.length / 2;
+        }
+
+        @Override
+        public int inDegree(int v) {
+            int[] in = list(_directed ? _in : _out, v);
+            return in == null ? 0 : in.length / 2;
+        }
+
+        @Override
+        public boolean contains(int u) {
+            return list(_out, u) != null;
+        }
+
+        @Override
+        public boolean contains(int u, int v) {
+            return edgeId(u, v) != 0;
+        }
+
+        @Override
+        public int add() {
+            checkDraft();
+            PriorityQueue<Integer> free = _state._free;
+            int v = free.isEmpty() ? _maxVertex + 1 : free.poll();
+            setList(true, v, EMPTY);
+            if (_directed) {
+                setList(false, v, EMPTY);
+            }
+            _maxVertex = Math.max(_maxVertex, v);
+            _vertexSize += 1;
+            return v;
+        }
+
+        @Override
+        public int add(int u, int v) {
+            checkDraft();
+            checkMyVertex(u);
+            checkMyVertex(v);
+            int e = edgeId(u, v);
+            if (e != 0) {
+                return e;
+            }
+            _state._lastEdgeId += 1;
+            e = _state._lastEdgeId;
+            setList(true, u, with(list(_out, u), v, e));
+            if (_directed) {
+                setList(false, v, with(list(_in, v), u, e));
+            } else if (u != v) {
+                setList(true, v, with(list(_out, v), u, e));
+            }
+            _edgeSize += 1;
+            return e;
+        }
+
+        @Override
+        public void remove(int v) {
+            checkDraft();
+            if (!contains(v)) {
+                return;
+            }
+            int[] out = list(_out, v);
+            for (int k = 0; k < out.length; k += 2) {
+                remove(v, out[k]);
+            }
+            if (_directed) {
+                int[] in = list(_in, v);
+                for (int k = 0; k < in.length; k += 2) {
+                    remove(in[k], v);
+                }
+                setList(false, v, null);
+            }
+            setList(true, v, null);
+            _vertexSize -= 1;
+            _state._free.add(v);
+            if (v == _maxVertex) {
+                while (_maxVertex > 0 && !contains(_maxVertex)) {
+                    _maxVertex -= 1;
+                }
+                final int max = _maxVertex;
+                _state._free.removeIf(w -> w > max);
+            }
+        }
+
+        @Override
+        public void remove(int u, int v) {
+            checkDraft();
+            if (!contains(u, v)) {
+                return;
+            }
+            setList(true, u, without(list(_out, u), v));
+            if (_directed) {
+                setList(false, v, without(list(_in, v), u));
+            } else if (u != v) {
+                setList(true, v, without(list(_out, v), u));
+            }
+            _edgeSize -= 1;
+        }
+
+        @Override
+        public Iteration<Integer> vertices() {
+            return verticesInt();
+        }
+
+        @Override
+        public IntIteration verticesInt() {
+            return new IntIteration() {
+                @Override
+                public boolean hasNext() {
+                    while (_v <= _maxVertex && !contains(_v)) {
+                        _v += 1;
+                    }
+                    return _v <= _maxVertex;
+                }
+
+                @Override
+                public int nextInt() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    _v += 1;
+                    return _v - 1;
+                }
+
+                /** Candidate for the next vertex. */
+                private int _v = 1;
+            };
+        }
+
+        @Override
+        public Iteration<Integer> successors(int v) {
+            return successorsInt(v);
+        }
+
+        @Override
+        public IntIteration successorsInt(int v) {
+            return new Neighbors(list(_out, v));
+        }
+
+        @Override
+        public Iteration<Integer> predecessors(int v) {
+            return predecessorsInt(v);
+        }
+
+        @Override
+        public IntIteration predecessorsInt(int v) {
+            return new Neighbors(list(_directed ? _in : _out, v));
+        }
+
+        @Override
+        public Iteration<int[]> edges() {
+            return new Iteration<int[]>() {
+                @Override
+                public boolean hasNext() {
+                    while (true) {
+                        if (_list != null && _k < _list.length) {
+                            if (_directed || _u <= _list[_k]) {
+                                return true;
+                            }
+                            _k += 2;
+                        } else if (_u < _maxVertex) {
+                            _u += 1;
+                            _list = list(_out, _u);
+                            _k = 0;
+                        } else {
+                            return false;
+                        }
+                    }
+                }
+
+                @Override
+                public int[] next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    _edge[0] = _u;
+                    _edge[1] = _list[_k];
+                    _k += 2;
+                    return _edge;
+                }
+
+                /** The vertex whose successors are being examined. */
+                private int _u;
+                /** The successor list of _u. */
+                private int[] _list;
+                /** Position in _list of the next candidate edge. */
+                private int _k;
+                /** The array returned by next(). */
+                private final int[] _edge = new int[2];
+            };
+        }
+
+        @Override
+        protected int edgeId(int u, int v) {
+            int[] out = list(_out, u);
+            if (out == null || !contains(v)) {
+                return 0;
+            }
+            for (int k = 0; k < out.length; k += 2) {
+                if (out[k] == v) {
+                    return out[k + 1];
+                }
+            }
+            return 0;
+        }
+
+        /** Throw an exception if I have been sealed. */
+        private void checkDraft() {
+            if (_state == null) {
+                throw new UnsupportedOperationException("graph version "
+                                                        + "is immutable");
+            }
+        }
+
+        /** Returns the list for V in TABLE (_out or _in), or null. */
+        private int[] list(int[][][] table, int v) {
+            int s = v >>> SEGMENT_BITS;
+            if (v <= 0 || s >= table.length || table[s] == null) {
+                return null;
+            }
+            return table[s][v & (SEGMENT_SIZE - 1)];
+        }
+
+        /** Set the list for V to LIST in _out if OUT, and otherwise in
+         *  _in, first copying V's segment if it is shared with another
+         *  version. */
+        private void setList(boolean out, int v, int[] list) {
+            int s = v >>> SEGMENT_BITS;
+            if (s >= _out.length) {
+                int n = Math.max(s + 1, 2 * _out.length);
+                _out = Arrays.copyOf(_out, n);
+                if (_in != null) {
+                    _in = Arrays.copyOf(_in, n);
+                }
+                _ownedOut = Arrays.copyOf(_ownedOut, n);
+                _ownedIn = Arrays.copyOf(_ownedIn, n);
+            }
+            int[][][] table = out ? _out : _in;
+            boolean[] owned = out ? _ownedOut : _ownedIn;
+            if (!owned[s]) {
+                table[s] = table[s] == null
+                    ? new int[SEGMENT_SIZE][] : table[s].clone();
+                owned[s] = true;
+            }
+            table[s][v & (SEGMENT_SIZE - 1)] = list;
+        }
+
+        /** Returns a copy of LIST with neighbor W and edge id E added. */
+        private static int[] with(int[] list, int w, int e) {
+            int[] result = Arrays.copyOf(list, list.length + 2);
+            result[list.length] = w;
+            result[list.length + 1] = e;
+            return result;
+        }
+
+        /** Returns a copy of LIST without neighbor W and its edge id. */
+        private static int[] without(int[] list, int w) {
+            for (int k = 0; k < list.length; k += 2) {
+                if (list[k] == w) {
+                    int[] result = new int[list.length - 2];
+                    System.arraycopy(list, 0, result, 0, k);
+                    System.arraycopy(list, k + 2, result, k,
+                                     list.length - k - 2);
+                    return result;
+                }
+            }
+            return list;
+        }
+
+        /** True iff I am directed. */
+        private final boolean _directed;
+        /** My version number. */
+        private long _version;
+        /** My maximum vertex, number of vertices, and number of edges. */
+        private int _maxVertex, _vertexSize, _edgeSize;
+        /** Successor lists by segment. */
+        private int[][][] _out;
+        /** Predecessor lists by segment, or null if undirected. */
+        private int[][][] _in;
+        /** Writer bookkeeping while I am a draft; null once sealed. */
+        private WriterState _state;
+        /** While I am a draft, _ownedOut[S] is true iff segment S of _out
+         *  belongs to me alone (and likewise for _ownedIn). */
+        private boolean[] _ownedOut, _ownedIn;
+    }
+
+    /** An iteration over the neighbors in an adjacency list of
+     *  alternating neighbors and edge ids. */
+    private static class Neighbors extends IntIteration {
+        /** An iteration over LIST, which may be null (for no
+         *  neighbors). */
+        Neighbors(int[] list) {
+            _list = list == null ? EMPTY : list;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _k < _list.length;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            _k += 2;
+            return _list[_k - 2];
+        }
+
+        /** The list. */
+        private final int[] _list;
+        /** Position of the next neighbor. */
+        private int _k;
+    }
+}
@@ -26,6 +26,11 @@ class Location {
         return x.dist(y);
     }
 
+    /** Returns my name. */
+    String name() {
+        return _name;
+    }
+
     @Override
     public String toString() {
         return _name;
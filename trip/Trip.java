@@ -1,11 +1,12 @@
 package trip;
 
 import graph.DirectedGraph;
+import graph.DoubleEdgeColumn;
+import graph.FrozenGraph;
 import graph.LabeledGraph;
 import graph.SimpleShortestPaths;
 
 
-import java.util.HashMap;
 import java.util.InputMismatchException;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -54,6 +55,7 @@ class Trip {
         } catch (NoSuchElementException excp) {
             error("entry incomplete at end of file");
         }
+        _roads = new FrozenGraph(_map);
     }
 
     /** Produce a report on the standard output of a shortest journey from
@@ -68,12 +70,12 @@ class Trip {
 
         step = 1;
         for (int i = 1; i < dests.size(); i += 1) {
-            Integer
-                from = _sites.get(dests.get(i - 1)),
-                to = _sites.get(dests.get(i));
-            if (from == null) {
+            int
+                from = _map.getVertex(dests.get(i - 1)),
+                to = _map.getVertex(dests.get(i));
+            if (from == 0) {
                 error("No location named %s", dests.get(i - 1));
-            } else if (to == null) {
+            } else if (to == 0) {
                 error("No location named %s", dests.get(i));
             }
             TripPlan plan = new TripPlan(from, to);
@@ -142,11 +144,10 @@ class Trip {
 
     /** Add a new location named NAME at (X, Y). */
     private void addLocation(String name, double x, double y) {
-        if (_sites.containsKey(name)) {
+        if (_map.getVertex(name) != 0) {
             error("multiple entries for %s", name);
         }
-        int v = _map.add(new Location(name, x, y));
-        _sites.put(name, v);
+        _map.add(new Location(name, x, y));
     }
 
     /** Add a stretch of road named NAME from the Location named FROM
@@ -155,22 +156,25 @@ class Trip {
      *  to FROM. */
     private void addRoad(String from, String name, double length,
                          Direction dir, String to) {
-        Integer v0 = _sites.get(from), v1 = _sites.get(to);
-        if (v0 == null) {
+        int v0 = _map.getVertex(from), v1 = _map.getVertex(to);
+        if (v0 == 0) {
             error("location %s not defined", from);
-        } else if (v1 == null) {
+        } else if (v1 == 0) {
             error("location %s not defined", to);
         }
         Road roadto = new Road(name, dir, length);
         Road roadback = new Road(name, dir.reverse(), length);
         _map.add(v0, v1, roadto);
         _map.add(v1, v0, roadback);
+        _map.setLength(v0, v1, length);
+        _map.setLength(v1, v0, length);
     }
 
     /** Represents the network of Locations and Roads. */
     private RoadMap _map = new RoadMap();
-    /** Mapping of Location names to corresponding map vertices. */
-    private HashMap<String, Integer> _sites = new HashMap<>();
+    /** A read-only copy of the structure of _map, on which trips are
+     *  planned once the map has been read. */
+    private FrozenGraph _roads;
 
     /** A labeled directed graph of Locations whose edges are labeled by
      *  Roads. */
@@ -178,23 +182,36 @@ class Trip {
         /** An empty RoadMap. */
         RoadMap() {
             super(new DirectedGraph());
+            _lengths = doubleColumn(Double.POSITIVE_INFINITY);
+            indexVertices(Location::name);
         }
+
+        /** Returns the length of the road from U to V, or infinity if
+         *  there is none. */
+        double length(int u, int v) {
+            return _lengths.get(u, v);
+        }
+
+        /** Set length(U, V) to LENGTH.  (U, V) must be a road. */
+        void setLength(int u, int v, double length) {
+            _lengths.set(u, v, length);
+        }
+
+        /** Road lengths, by edge. */
+        private final DoubleEdgeColumn _lengths;
     }
 
     /** Paths in _map from a given location. */
     private class TripPlan extends SimpleShortestPaths {
         /** A plan for travel from START to DEST according to _map. */
         TripPlan(int start, int dest) {
-            super(_map, start, dest);
+            super(_roads, start, dest);
             _finalLocation = _map.getLabel(dest);
         }
 
         @Override
         protected double getWeight(int u, int v) {
-            if (!_G.contains(u, v)) {
-                return Double.POSITIVE_INFINITY;
-            }
-            return _map.getLabel(u, v).length();
+            return _map.length(u, v);
         }
 
         @Override